@@ -0,0 +1,69 @@
+package ca.sheridancollege.project;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks drawing from and shuffling a {@link BlackjackDeck}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeckBenchmark {
+
+    /** Number of decks in the shoe. */
+    @Param({ "1", "6" })
+    public int decks;
+
+    // The shoe being benchmarked
+    private BlackjackDeck deck;
+
+    /**
+     * Builds a seeded shoe so every run deals the same cards.
+     */
+    @Setup
+    public void setUp() {
+        deck = new BlackjackDeck(decks, BlackjackDeck.DEFAULT_PENETRATION);
+        deck.setRandom(new XoroshiroRandomSource(42));
+        deck.shuffle();
+    }
+
+    /**
+     * Draws one card, reshuffling whenever the cut card comes out so the shoe
+     * never runs dry.
+     *
+     * @return the card drawn.
+     */
+    @Benchmark
+    public BlackjackCard drawCard() {
+        deck.reshuffleIfNeeded();
+        return deck.drawCard();
+    }
+
+    /**
+     * Shuffles the whole shoe.
+     *
+     * @return the shoe, so the shuffle can't be optimized away.
+     */
+    @Benchmark
+    public BlackjackDeck shuffle() {
+        deck.shuffle();
+        return deck;
+    }
+}
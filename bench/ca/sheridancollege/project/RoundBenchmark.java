@@ -0,0 +1,89 @@
+package ca.sheridancollege.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the dealer's turn and a complete headless round of
+ * {@link BlackjackGame}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundBenchmark {
+
+    /** Number of strategy players seated at the table. */
+    @Param({ "1", "4" })
+    public int seats;
+
+    // The shoe shared by the dealer and the game
+    private BlackjackDeck deck;
+
+    // A dealer played on its own
+    private Dealer dealer;
+
+    // A table of strategy players
+    private BlackjackGame game;
+
+    /**
+     * Builds a seeded six deck table.
+     */
+    @Setup
+    public void setUp() {
+        deck = new BlackjackDeck(6, BlackjackDeck.DEFAULT_PENETRATION);
+        deck.setRandom(new XoroshiroRandomSource(42));
+
+        List<BlackjackPlayer> players = new ArrayList<>();
+        for (int i = 0; i < seats; i++) {
+            players.add(new BlackjackPlayer("Seat " + (i + 1), new BasicStrategy()));
+        }
+        game = new BlackjackGame("Benchmark", players, deck);
+        game.setOutput(NullSink.INSTANCE);
+        dealer = new Dealer();
+    }
+
+    /**
+     * Deals the dealer two cards and plays the dealer's turn.
+     *
+     * @return the dealer's final score.
+     */
+    @Benchmark
+    public int dealerPlay() {
+        deck.reshuffleIfNeeded();
+        dealer.resetHand();
+        dealer.addCardToHand(deck.drawCard());
+        dealer.addCardToHand(deck.drawCard());
+        dealer.play(deck);
+        return dealer.getScore();
+    }
+
+    /**
+     * Plays one complete round: deal, every player's turn, the dealer's turn and
+     * settlement.
+     *
+     * @return the outcomes of the round.
+     */
+    @Benchmark
+    public Outcome[] fullRound() {
+        deck.reshuffleIfNeeded();
+        return game.playHeadless();
+    }
+}
@@ -0,0 +1,86 @@
+package ca.sheridancollege.project;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks scoring a hand, both card by card through
+ * {@link BlackjackPlayer#addCardToHand(BlackjackCard)} and from scratch
+ * through {@link BlackjackPlayer#setHand(ArrayList)}, which recalculates the
+ * whole score.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringBenchmark {
+
+    // A typical five card hand with a soft total along the way
+    private BlackjackCard[] cards;
+
+    // The same hand as a list, for recalculating from scratch
+    private ArrayList<BlackjackCard> hand;
+
+    // The player being scored
+    private BlackjackPlayer player;
+
+    /**
+     * Builds the hand and player.
+     */
+    @Setup
+    public void setUp() {
+        cards = new BlackjackCard[] {
+            BlackjackCard.of(Suit.SPADES, 4),
+            BlackjackCard.of(Suit.HEARTS, 1),
+            BlackjackCard.of(Suit.CLUBS, 2),
+            BlackjackCard.of(Suit.DIAMONDS, 12),
+            BlackjackCard.of(Suit.SPADES, 3)
+        };
+        hand = new ArrayList<>();
+        for (BlackjackCard card : cards) {
+            hand.add(card);
+        }
+        player = new BlackjackPlayer("Benchmark");
+    }
+
+    /**
+     * Deals the hand one card at a time, as a round does.
+     *
+     * @return the final score.
+     */
+    @Benchmark
+    public int addCardToHand() {
+        player.resetHand();
+        for (BlackjackCard card : cards) {
+            player.addCardToHand(card);
+        }
+        player.revealHiddenCard();
+        return player.getScore();
+    }
+
+    /**
+     * Recalculates the score of the whole hand.
+     *
+     * @return the final score.
+     */
+    @Benchmark
+    public int calculateScore() {
+        player.setHand(hand);
+        return player.getScore();
+    }
+}
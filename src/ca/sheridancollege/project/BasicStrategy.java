@@ -0,0 +1,43 @@
+package ca.sheridancollege.project;
+
+/**
+ * The standard hit/stand basic strategy for Blackjack. Doubling and splitting
+ * are not considered.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class BasicStrategy implements PlayerStrategy {
+
+    /**
+     * Chooses to hit or stand based on the player's score, whether the hand is
+     * soft, and the dealer's visible card.
+     *
+     * @param player       the player whose turn it is.
+     * @param dealerUpcard the point value of the dealer's visible card.
+     * @return HIT or STAND.
+     */
+    @Override
+    public Decision decide(BlackjackPlayer player, int dealerUpcard) {
+        int score = player.getScore();
+
+        if (player.isSoft()) {
+            // Soft hands: stand on 19 or more, and on 18 unless the dealer shows 9, 10 or Ace
+            if (score >= 19 || (score == 18 && dealerUpcard >= 2 && dealerUpcard <= 8)) {
+                return Decision.STAND;
+            }
+            return Decision.HIT;
+        }
+
+        // Hard hands
+        if (score >= 17) {
+            return Decision.STAND;
+        }
+        if (score >= 13 && dealerUpcard >= 2 && dealerUpcard <= 6) {
+            return Decision.STAND;
+        }
+        if (score == 12 && dealerUpcard >= 4 && dealerUpcard <= 6) {
+            return Decision.STAND;
+        }
+        return Decision.HIT;
+    }
+}
@@ -4,54 +4,105 @@ package ca.sheridancollege.project;
  * Represents a card in a game of Blackjack. This class extends the general Card
  * class to provide
  * specific properties and behavior related to Blackjack.
- * 
+ *
+ * <p>
+ * Cards are immutable and there is exactly one instance of each of the 52
+ * cards, obtained from {@link #of(Suit, int)} or {@link #of(int)}. Every deck,
+ * shoe and hand shares these instances, so they are safe to use from any
+ * thread. Whether an Ace counts as 1 or 11 belongs to the hand holding it, not
+ * to the card.
+ *
  * @author Yonathan Camacho, 2023
  */
-public class BlackjackCard extends Card {
+public final class BlackjackCard extends Card {
+
+    /** Number of distinct cards in a standard deck. */
+    public static final int DISTINCT_CARDS = 52;
+
+    // The only instance of each card, indexed by code
+    private static final BlackjackCard[] CARDS = new BlackjackCard[DISTINCT_CARDS];
+
+    static {
+        for (Suit suit : Suit.values()) {
+            for (int value = 1; value <= 13; value++) {
+                BlackjackCard card = new BlackjackCard(suit, value);
+                CARDS[card.code] = card;
+            }
+        }
+    }
 
     // Enum representing the card's suit (HEARTS, DIAMONDS, CLUBS, SPADES)
-    private Suit suit;
+    private final Suit suit;
 
     // Numeric value of the card (1-13)
-    private int value;
+    private final int value;
 
     // Display representation of the card's value (e.g., "A", "J", "Q", "K", or
     // "2-10")
-    private String displayValue;
+    private final String displayValue;
+
+    // Compact code of the card (0-51): suit * 13 + value - 1
+    private final byte code;
+
+    // The string representation, built once
+    private final String name;
 
     /**
-     * Constructs a new Blackjack card with the specified suit and value.
+     * Constructs the single instance of a card.
      *
      * @param suit  The suit of the card.
      * @param value The numeric value of the card (1-13).
      */
-    public BlackjackCard(Suit suit, int value) {
+    private BlackjackCard(Suit suit, int value) {
         this.suit = suit;
         this.value = value;
-        setDisplayValue(value);
+        this.displayValue = toDisplayValue(value);
+        this.code = (byte) (suit.ordinal() * 13 + value - 1);
+        this.name = displayValue + " of " + suit;
+    }
+
+    /**
+     * Gets the card with the specified suit and value.
+     *
+     * @param suit  The suit of the card.
+     * @param value The numeric value of the card (1-13).
+     * @return The shared instance of the card.
+     */
+    public static BlackjackCard of(Suit suit, int value) {
+        if (value < 1 || value > 13) {
+            throw new IllegalArgumentException("Card value must be between 1 and 13: " + value);
+        }
+        return CARDS[suit.ordinal() * 13 + value - 1];
     }
 
     /**
-     * Sets the display value based on the card's numeric value.
+     * Gets the card with the specified code.
+     *
+     * @param code The code of the card (0-51), see {@link #getCode()}.
+     * @return The shared instance of the card.
+     */
+    public static BlackjackCard of(int code) {
+        return CARDS[code];
+    }
+
+    /**
+     * Gets the display value for a numeric card value.
      *
      * @param value The numeric value of the card.
+     * @return "A", "J", "Q", "K", or the number itself.
      */
-    private void setDisplayValue(int value) {
+    private static String toDisplayValue(int value) {
         switch (value) {
             case 1:
-                this.displayValue = "A";
-                break;
+                return "A";
             case 11:
-                this.displayValue = "J";
-                break;
+                return "J";
             case 12:
-                this.displayValue = "Q";
-                break;
+                return "Q";
             case 13:
-                this.displayValue = "K";
-                break;
+                return "K";
             default:
-                this.displayValue = String.valueOf(value);
+                return String.valueOf(value);
         }
     }
 
@@ -62,7 +113,7 @@ public class BlackjackCard extends Card {
      */
     @Override
     public String toString() {
-        return displayValue + " of " + suit;
+        return name;
     }
 
     // Getter for the card's suit
@@ -70,28 +121,33 @@ public class BlackjackCard extends Card {
         return suit;
     }
 
-    // Setter for the card's suit
-    public void setSuit(Suit suit) {
-        this.suit = suit;
-    }
-
     // Getter for the card's numeric value
     public int getValue() {
         return value;
     }
 
+    // Getter for the card's display value
+    public String getDisplayValue() {
+        return displayValue;
+    }
+
     /**
-     * Sets the card's numeric value and updates its display value accordingly.
+     * Gets the hard point value of the card, counting an Ace as 1 and face cards
+     * as 10.
      *
-     * @param value The numeric value to set.
+     * @return The point value of the card (1-10).
      */
-    public void setValue(int value) {
-        this.value = value;
-        setDisplayValue(value);
+    public int getPoints() {
+        return value > 10 ? 10 : value;
     }
 
-    // Getter for the card's display value
-    public String getDisplayValue() {
-        return displayValue;
+    /**
+     * Gets the compact code of the card, which fits in a byte and can be turned
+     * back into the card with {@link #of(int)}.
+     *
+     * @return The code of the card (0-51).
+     */
+    public int getCode() {
+        return code;
     }
 }
@@ -1,42 +1,334 @@
 package ca.sheridancollege.project;
 
 /**
- * Represents a standard deck of cards specifically for a game of Blackjack.
- * This class extends GroupOfCards to provide Blackjack-specific deck behavior.
- * 
+ * Represents a shoe of one or more standard decks of cards for a game of
+ * Blackjack. This class extends GroupOfCards to provide Blackjack-specific deck
+ * behavior.
+ *
+ * <p>
+ * The shoe holds references to the shared card instances. Shuffling only
+ * reorders an array of card indexes and drawing moves a cursor along it, so a
+ * shoe can be dealt from for as long as the table is open without allocating.
+ * When the cursor passes the cut card the shoe is reshuffled before the next
+ * round. A {@link CompositionTracker} follows every draw, so the cards left
+ * can be read without a rescan.
+ *
  * @author Yonathan Camacho, 2023
  */
 public class BlackjackDeck extends GroupOfCards {
 
+    /** Smallest number of decks allowed in a shoe. */
+    public static final int MIN_DECKS = 1;
+
+    /** Largest number of decks allowed in a shoe. */
+    public static final int MAX_DECKS = 8;
+
+    /** Share of the shoe dealt before reshuffling when none is given. */
+    public static final double DEFAULT_PENETRATION = 0.75;
+
+    // Number of standard 52 card decks in the shoe
+    private final int decks;
+
+    // Every card in the shoe, referencing the shared card instances
+    private final BlackjackCard[] shoe;
+
+    // The shuffled order of the cards, as indexes into shoe
+    private final int[] order;
+
+    // Position of the next card to draw in order
+    private int cursor;
+
+    // Position of the cut card; reaching it triggers a reshuffle between rounds
+    private int cutCard;
+
+    // The seed of the last shuffle
+    private long shuffleSeed;
+
+    // The random source used to shuffle, or null to use the current thread's
+    private RandomSource random;
+
+    // The cards left, updated on every draw
+    private final CompositionTracker tracker;
+
+    // The corpus slice new shoes are read from instead of shuffling, or null
+    private ShoeCorpus.Slice shoes;
+
+    // Card codes of the shoe read from the corpus
+    private byte[] codes;
+
     /**
      * Constructs a new standard Blackjack deck with 52 cards.
      */
     public BlackjackDeck() {
-        super(52);
+        this(1, DEFAULT_PENETRATION);
+    }
+
+    /**
+     * Constructs a new shoe with the given number of decks.
+     *
+     * @param decks       The number of 52 card decks in the shoe (1-8).
+     * @param penetration The share of the shoe dealt before it is reshuffled,
+     *                    greater than 0 and at most 1.
+     */
+    public BlackjackDeck(int decks, double penetration) {
+        super(52 * decks);
+        if (decks < MIN_DECKS || decks > MAX_DECKS) {
+            throw new IllegalArgumentException("A shoe must have between " + MIN_DECKS + " and " + MAX_DECKS
+                    + " decks: " + decks);
+        }
+        this.decks = decks;
         initializeDeck();
+
+        shoe = getCards().toArray(new BlackjackCard[0]);
+        order = new int[shoe.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        setPenetration(penetration);
+        tracker = new CompositionTracker(decks);
+
+        // A new shoe has to be shuffled before the first round
+        setPosition(order.length);
     }
 
     /**
-     * Initializes the deck with 52 standard Blackjack cards.
+     * Initializes the shoe with 52 standard Blackjack cards per deck.
      */
     private void initializeDeck() {
-        for (Suit suit : Suit.values()) {
-            for (int i = 1; i <= 13; i++) {
-                BlackjackCard card = new BlackjackCard(suit, i);
-                getCards().add(card);
+        for (int d = 0; d < decks; d++) {
+            for (Suit suit : Suit.values()) {
+                for (int i = 1; i <= 13; i++) {
+                    getCards().add(BlackjackCard.of(suit, i));
+                }
             }
         }
     }
 
     /**
-     * Draws a card from the top of the deck.
+     * Shuffles every card back into the shoe using the shoe's random source, or
+     * the current thread's if none was set. If the shoe reads from a
+     * {@link ShoeCorpus}, the corpus's next shoe is dealt instead.
+     */
+    @Override
+    public void shuffle() {
+        if (shoes != null) {
+            long seed = shoes.next(codes, 0);
+            // The card with each code is at that index in the first deck
+            for (int i = 0; i < order.length; i++) {
+                order[i] = codes[i];
+            }
+            startShoe(seed);
+            return;
+        }
+        shuffle(random != null ? random : RandomSource.forCurrentThread());
+    }
+
+    /**
+     * Shuffles every card back into the shoe using a seed drawn from the given
+     * random source.
+     *
+     * @param random the random source to shuffle with.
+     */
+    @Override
+    public void shuffle(RandomSource random) {
+        shuffle(random.nextLong());
+    }
+
+    /**
+     * Shuffles every card back into the shoe in the order given by a seed. The
+     * order depends only on the seed and the number of decks, not on earlier
+     * shuffles, so recording the seed is enough to deal the same shoe again.
+     *
+     * @param seed the seed of the shuffle.
+     */
+    public void shuffle(long seed) {
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        shuffle(order, new XoroshiroRandomSource(seed));
+        startShoe(seed);
+    }
+
+    /**
+     * Starts dealing a newly shuffled shoe from the top.
+     *
+     * @param seed the seed of the shuffle.
+     */
+    private void startShoe(long seed) {
+        shuffleSeed = seed;
+        cursor = 0;
+        tracker.reset();
+        GameMetrics.recorder().reshuffled();
+    }
+
+    /**
+     * @return the seed of the last shuffle, see {@link #shuffle(long)}.
+     */
+    public long getShuffleSeed() {
+        return shuffleSeed;
+    }
+
+    /**
+     * Determines if the cut card has been reached.
+     *
+     * @return true if the shoe should be reshuffled before the next round.
+     */
+    public boolean needsReshuffle() {
+        return cursor >= cutCard;
+    }
+
+    /**
+     * Reshuffles the shoe if the cut card has been reached. Call this between
+     * rounds.
+     *
+     * @return true if the shoe was reshuffled.
+     */
+    public boolean reshuffleIfNeeded() {
+        if (needsReshuffle()) {
+            shuffle();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Draws a card from the top of the shoe. If the shoe runs out in the middle
+     * of a round it is reshuffled, so this never returns null.
      *
-     * @return The top card from the deck, or null if the deck is empty.
+     * @return The top card from the shoe.
      */
     public BlackjackCard drawCard() {
-        if (!getCards().isEmpty()) {
-            return (BlackjackCard) getCards().remove(0);
+        if (cursor == order.length) {
+            shuffle();
+        }
+        BlackjackCard card = shoe[order[cursor++]];
+        tracker.remove(card.getPoints());
+        return card;
+    }
+
+    /**
+     * Gets the position of the next card to be drawn, so the same cards can be
+     * dealt again with {@link #setPosition(int)}.
+     *
+     * @return the number of cards drawn since the last shuffle.
+     */
+    public int getPosition() {
+        return cursor;
+    }
+
+    /**
+     * Moves back (or forward) to a position in the current shuffle, so a
+     * simulation can replay the same cards with different decisions.
+     *
+     * @param position a position returned by {@link #getPosition()}.
+     */
+    public void setPosition(int position) {
+        if (position < 0 || position > order.length) {
+            throw new IllegalArgumentException("Position must be between 0 and " + order.length + ": " + position);
+        }
+        // Only the cards between the two positions change hands
+        while (cursor > position) {
+            tracker.add(shoe[order[--cursor]].getPoints());
+        }
+        while (cursor < position) {
+            tracker.remove(shoe[order[cursor++]].getPoints());
+        }
+    }
+
+    /**
+     * @return the number of cards left before the shoe runs out.
+     */
+    public int getRemaining() {
+        return order.length - cursor;
+    }
+
+    /**
+     * Counts the cards left in the shoe by point value.
+     *
+     * @param counts an array of at least 11 elements; counts[p] is set to the
+     *               number of cards left worth p points (1 for an Ace, 10 for
+     *               tens and face cards).
+     * @return the counts array.
+     */
+    public int[] getComposition(int[] counts) {
+        counts[0] = 0;
+        return tracker.getComposition(counts);
+    }
+
+    /**
+     * @return the tracker that follows the cards left in the shoe, with their
+     *         running counts.
+     */
+    public CompositionTracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * @return the number of 52 card decks in the shoe.
+     */
+    public int getDecks() {
+        return decks;
+    }
+
+    /**
+     * @return the random source used to shuffle, or null if the current thread's
+     *         is used.
+     */
+    public RandomSource getRandom() {
+        return random;
+    }
+
+    /**
+     * Sets the random source used whenever the shoe is shuffled, so a seeded
+     * source makes every shuffle of the shoe repeatable.
+     *
+     * @param random the random source, or null to use the current thread's.
+     */
+    public void setRandom(RandomSource random) {
+        this.random = random;
+    }
+
+    /**
+     * @return the corpus slice new shoes are read from, or null if they are
+     *         shuffled.
+     */
+    public ShoeCorpus.Slice getShoes() {
+        return shoes;
+    }
+
+    /**
+     * Deals every new shoe from a {@link ShoeCorpus} instead of shuffling, so
+     * the same shoes can be dealt to different rules or strategies.
+     *
+     * @param shoes the corpus slice to read shoes from, or null to shuffle.
+     * @throws IllegalArgumentException if the corpus's shoes have a different
+     *                                  number of decks.
+     */
+    public void setShoes(ShoeCorpus.Slice shoes) {
+        if (shoes != null && shoes.getDecks() != decks) {
+            throw new IllegalArgumentException("The corpus has " + shoes.getDecks() + " deck shoes, not " + decks);
+        }
+        this.shoes = shoes;
+        codes = shoes != null ? new byte[order.length] : null;
+    }
+
+    /**
+     * @return the share of the shoe dealt before it is reshuffled.
+     */
+    public double getPenetration() {
+        return (double) cutCard / order.length;
+    }
+
+    /**
+     * Moves the cut card.
+     *
+     * @param penetration The share of the shoe dealt before it is reshuffled,
+     *                    greater than 0 and at most 1.
+     */
+    public void setPenetration(double penetration) {
+        if (!(penetration > 0 && penetration <= 1)) {
+            throw new IllegalArgumentException("Penetration must be greater than 0 and at most 1: " + penetration);
         }
-        return null;
+        cutCard = Math.max(1, (int) (order.length * penetration));
     }
 }
@@ -1,5 +1,7 @@
 package ca.sheridancollege.project;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -19,6 +21,52 @@ public class BlackjackGame extends Game {
     // The dealer, a special type of player in the game
     private Dealer dealer;
 
+    // Whether the dealer checks for a Blackjack before the players play
+    private boolean peeks;
+
+    // The outcome of each player's hand in the last settled round
+    private Outcome[] outcomes;
+
+    // The stage the current round has reached
+    private RoundState state = RoundState.SETTLED;
+
+    // Index of the player whose turn it is
+    private int turn;
+
+    // The player whose turn it is, or null if it is no player's turn
+    private BlackjackPlayer currentPlayer;
+
+    // Told about every event of a round, or null
+    private RoundListener listener;
+
+    // Where the console game is shown
+    private OutputSink output = TerminalSink.STDOUT;
+
+    // The log every round is recorded to, or null
+    private HandHistoryLog history;
+
+    // The round being recorded, and the table and round number it is logged as
+    private final HandRecord record = new HandRecord();
+    private int table;
+    private long roundId;
+
+    // The recorder of the thread that last used it, and that thread
+    private GameMetrics.Recorder metrics;
+    private Thread metricsThread;
+
+    // Rounds left until the next timed one
+    private int untilSample = GameMetrics.SAMPLE_INTERVAL;
+
+    // Whether the current round is timed, and when its current phase started
+    private boolean timed;
+    private long phaseStart;
+
+    // Counts not yet added to a recorder
+    private int pendingRounds;
+    private int pendingHands;
+    private int pendingBusts;
+    private int pendingBlackjacks;
+
     /**
      * Constructs a new Blackjack game with the specified name and list of players.
      *
@@ -26,21 +74,399 @@ public class BlackjackGame extends Game {
      * @param players The list of players participating in the game.
      */
     public BlackjackGame(String name, List<BlackjackPlayer> players) {
+        this(name, players, new BlackjackDeck());
+    }
+
+    /**
+     * Constructs a new Blackjack game that deals from an existing shoe, so the
+     * shoe can be kept between games.
+     *
+     * @param name    The name of the game.
+     * @param players The list of players participating in the game.
+     * @param deck    The shoe to deal from.
+     */
+    public BlackjackGame(String name, List<BlackjackPlayer> players, BlackjackDeck deck) {
         super(name);
-        deck = new BlackjackDeck();
+        this.deck = deck;
         this.players = players;
         dealer = new Dealer();
     }
 
     /**
-     * Begins the game by shuffling the deck, dealing cards to players and the
-     * dealer,
-     * and determining the winner.
+     * Begins the game by reshuffling the shoe if the cut card has been reached,
+     * dealing cards to players and the dealer,
+     * and determining the winner. The round is driven through the same state
+     * machine as every other round, with each decision read from the console.
      */
     @Override
     public void play() {
-        deck.shuffle();
+        if (deck.reshuffleIfNeeded()) {
+            output.println("The shoe has been reshuffled.\n");
+        }
+        startRound();
+
+        // Handle each player's turn
+        while (state == RoundState.PLAYER_TURN) {
+            BlackjackPlayer player = currentPlayer;
+            output.println("It's " + player.getName() + "'s turn:");
+            player.setGame(this);
+            while (currentPlayer == player) {
+                BlackjackCard card = decide(player.readDecision());
+                if (card != null) {
+                    player.announceCard(card);
+                }
+            }
+            player.setGame(null);
+            output.clearScreen();
+
+            if (player.isBusted()) {
+                output.println(player.getName() + " busted with a score of " + player.getScore() + "!\n");
+            } else {
+                output.println(player.getName() + " stands with a score of " + player.getScore() + ".\n");
+            }
+        }
+
+        // Determine and declare the winner of the game
+        declareWinner();
+        output.flush();
+    }
+
+    /**
+     * Plays one round without any console input or output, so it can be run
+     * millions of times by the {@link Simulator}. Every player must have a
+     * strategy. The shoe is not reshuffled here; the caller decides when to
+     * reshuffle it.
+     *
+     * @return the outcome of each player's hand, in the same order as the
+     *         players. The array is reused by the next round.
+     */
+    public Outcome[] playHeadless() {
+        startRound();
+
+        // Every player sees the same dealer card
+        int dealerUpcard = dealer.getUpcard().getPoints();
+        while (state == RoundState.PLAYER_TURN) {
+            BlackjackPlayer player = currentPlayer;
+            player.revealHiddenCard();
+            decide(player.chooseDecision(dealerUpcard));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Starts a round: clears every hand, deals the initial cards and moves to the
+     * first player's turn. From then on the round only advances when
+     * {@link #decide(Decision)} is called, so it never blocks a thread while
+     * waiting for a player and can be driven by console input, a strategy or
+     * network messages alike.
+     */
+    public void startRound() {
+        timed = --untilSample == 0;
+        if (timed) {
+            startTiming();
+        }
+        state = RoundState.DEALING;
+        if (history != null) {
+            record.start(table, roundId++, deck.getDecks(), deck.getShuffleSeed(), deck.getPosition());
+            record.setRules(dealer.getRules());
+        }
+        dealer.resetHand();
+        for (BlackjackPlayer player : players) {
+            player.resetHand();
+        }
+        dealInitialCards();
+        if (listener != null) {
+            listener.roundStarted();
+        }
+        endPhase(GameMetrics.Phase.DEAL);
+
+        turn = -1;
+        if (peeks && dealer.isNatural()) {
+            // The dealer checks the hidden card, and a Blackjack ends the round
+            currentPlayer = null;
+            playDealer();
+        } else {
+            nextTurn();
+        }
+    }
+
+    /**
+     * Applies the decision of the player whose turn it is. Hitting draws a card
+     * and keeps the turn unless the player busts; standing ends the turn;
+     * doubling draws exactly one card and ends the turn. When the last player's
+     * turn ends, the dealer plays and every hand is settled.
+     *
+     * @param decision the decision of the current player.
+     * @return the card drawn, or null if none was.
+     * @throws IllegalStateException    if it is no player's turn.
+     * @throws IllegalArgumentException if the decision is not allowed for the
+     *                                  hand.
+     */
+    public BlackjackCard decide(Decision decision) {
+        if (state != RoundState.PLAYER_TURN) {
+            throw new IllegalStateException("it is no player's turn");
+        }
+        BlackjackPlayer player = currentPlayer;
+        if (decision == Decision.SPLIT) {
+            throw new IllegalArgumentException("a single seat cannot split");
+        }
+        if (decision == Decision.DOUBLE
+                && PackedHand.cardCount(player.getPackedHand()) + (player.hasHiddenCard() ? 1 : 0) != 2) {
+            throw new IllegalArgumentException("can only double on the first two cards");
+        }
+        if (history != null) {
+            record.addDecision(turn, decision);
+        }
+
+        BlackjackCard card = null;
+        switch (decision) {
+            case HIT:
+                card = deal(player);
+                if (player.isBusted()) {
+                    nextTurn();
+                }
+                break;
+            case DOUBLE:
+                player.doubleDown();
+                card = deal(player);
+                nextTurn();
+                break;
+            default:
+                nextTurn();
+        }
+        return card;
+    }
+
+    /**
+     * Draws a card for a player and tells the listener.
+     *
+     * @param player the player who draws.
+     * @return the card drawn.
+     */
+    private BlackjackCard deal(BlackjackPlayer player) {
+        BlackjackCard card = deck.drawCard();
+        player.addCardToHand(card);
+        if (listener != null) {
+            listener.cardDealt(player, card);
+        }
+        return card;
+    }
+
+    /**
+     * Moves to the next player's turn, or to the dealer's turn once every player
+     * has played.
+     */
+    private void nextTurn() {
+        if (turn >= 0) {
+            endPhase(GameMetrics.Phase.PLAYER_TURN);
+        }
+        turn++;
+        if (turn < players.size()) {
+            state = RoundState.PLAYER_TURN;
+            currentPlayer = players.get(turn);
+            if (listener != null) {
+                listener.turnStarted(currentPlayer);
+            }
+        } else {
+            currentPlayer = null;
+            playDealer();
+        }
+    }
 
+    /**
+     * Plays the dealer's turn and settles every player's hand.
+     */
+    private void playDealer() {
+        state = RoundState.DEALER_TURN;
+        if (outcomes == null || outcomes.length != players.size()) {
+            outcomes = new Outcome[players.size()];
+        }
+
+        dealer.play(deck);
+        endPhase(GameMetrics.Phase.DEALER_TURN);
+
+        settleHands();
+        state = RoundState.SETTLED;
+        if (history != null) {
+            appendToHistory();
+        }
+        if (listener != null) {
+            listener.roundSettled(outcomes);
+        }
+        endPhase(GameMetrics.Phase.SETTLE);
+    }
+
+    /**
+     * Settles every player's hand against the dealer's and counts the round.
+     */
+    private void settleHands() {
+        for (int i = 0; i < outcomes.length; i++) {
+            BlackjackPlayer player = players.get(i);
+            outcomes[i] = settle(player);
+            if (player.isBusted()) {
+                pendingBusts++;
+            } else if (outcomes[i] == Outcome.BLACKJACK) {
+                pendingBlackjacks++;
+            }
+        }
+        pendingRounds++;
+        pendingHands += outcomes.length;
+    }
+
+    /**
+     * Finishes the round's record and appends it to the hand history.
+     */
+    private void appendToHistory() {
+        record.finish(players, dealer, outcomes);
+        if (deck.getShuffleSeed() != record.getSeed()) {
+            record.markReshuffled();
+        }
+        try {
+            history.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts timing a sampled round, and flushes the counts of the rounds
+     * before it.
+     */
+    private void startTiming() {
+        untilSample = GameMetrics.SAMPLE_INTERVAL;
+        flushMetrics();
+        phaseStart = System.nanoTime();
+    }
+
+    /**
+     * Adds the rounds counted since the last flush to the current thread's
+     * {@link GameMetrics}. Counts are kept in the game and flushed once every
+     * {@link GameMetrics#SAMPLE_INTERVAL} rounds, so the thread's recorder is
+     * left alone on most rounds; call this after the last round of a batch so
+     * none are left out.
+     */
+    public void flushMetrics() {
+        if (pendingRounds != 0) {
+            metrics().roundsSettled(pendingRounds, pendingHands, pendingBusts, pendingBlackjacks);
+            pendingRounds = 0;
+            pendingHands = 0;
+            pendingBusts = 0;
+            pendingBlackjacks = 0;
+        }
+    }
+
+    /**
+     * @return the current thread's recorder.
+     */
+    private GameMetrics.Recorder metrics() {
+        // A server table's rounds can move between threads
+        if (metricsThread != Thread.currentThread()) {
+            metricsThread = Thread.currentThread();
+            metrics = GameMetrics.recorder();
+        }
+        return metrics;
+    }
+
+    /**
+     * Ends a phase of the round, recording how long it took if the round is
+     * timed.
+     *
+     * @param phase the phase that has just ended.
+     */
+    private void endPhase(GameMetrics.Phase phase) {
+        if (timed) {
+            recordPhase(phase);
+        }
+    }
+
+    /**
+     * Records how long a phase took, and starts timing the next phase.
+     *
+     * @param phase the phase that has just ended.
+     */
+    private void recordPhase(GameMetrics.Phase phase) {
+        long now = System.nanoTime();
+        metrics().record(phase, now - phaseStart);
+        phaseStart = now;
+    }
+
+    /**
+     * @return the stage the current round has reached.
+     */
+    public RoundState getState() {
+        return state;
+    }
+
+    /**
+     * @return the player whose turn it is, or null if it is no player's turn.
+     */
+    public BlackjackPlayer getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * @return the outcome of each player's hand in the last settled round, in the
+     *         same order as the players, or null if no round has been settled.
+     */
+    public Outcome[] getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @return where the console game is shown.
+     */
+    public OutputSink getOutput() {
+        return output;
+    }
+
+    /**
+     * @param output where the console game is shown.
+     */
+    public void setOutput(OutputSink output) {
+        this.output = output;
+    }
+
+    /**
+     * @return the house rules the game is played under.
+     */
+    public HouseRules getRules() {
+        return dealer.getRules();
+    }
+
+    /**
+     * Sets the house rules the game is played under, from the next round on.
+     *
+     * @param rules the house rules.
+     */
+    public void setRules(HouseRules rules) {
+        dealer.setRules(rules);
+        peeks = rules.peeks();
+    }
+
+    /**
+     * Records every round from now on to a hand history log.
+     *
+     * @param history the log, or null to stop recording.
+     * @param table   the table number the rounds are logged under.
+     */
+    public void setHistory(HandHistoryLog history, int table) {
+        this.history = history;
+        this.table = table;
+    }
+
+    /**
+     * @param listener the listener told about every event of a round, or null
+     *                 for none.
+     */
+    public void setListener(RoundListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Deals two cards to every player and then two cards to the dealer. The first
+     * card of each hand stays hidden.
+     */
+    private void dealInitialCards() {
         // Deal initial cards to all players
         for (BlackjackPlayer player : players) {
             player.addCardToHand(deck.drawCard()); // Deal one hidden card for each player
@@ -50,24 +476,100 @@ public class BlackjackGame extends Game {
         // Deal initial cards to the dealer
         dealer.addCardToHand(deck.drawCard()); // Deal one hidden card for the dealer
         dealer.addCardToHand(deck.drawCard()); // Deal a second visible card
+    }
 
-        // Handle each player's turn
-        for (BlackjackPlayer player : players) {
-            System.out.println("It's " + player.getName() + "'s turn:");
-            player.play(deck);
+    /**
+     * Determines the outcome of a player's hand against the dealer, using the
+     * same rules as {@link #declareWinner()}.
+     *
+     * @param player the player to settle.
+     * @return the outcome of the player's hand.
+     */
+    public Outcome settle(BlackjackPlayer player) {
+        return settle(player, dealer);
+    }
 
-            if (player.isBusted()) {
-                System.out.println(player.getName() + " busted with a score of " + player.getScore() + "!\n");
-            } else {
-                System.out.println(player.getName() + " stands with a score of " + player.getScore() + ".\n");
+    /**
+     * Determines the outcome of a hand against a dealer's hand, using the same
+     * rules as {@link #declareWinner()}. A Blackjack (an Ace and a ten-point card
+     * as the first two cards) beats any other 21 and pays 3:2.
+     *
+     * @param player the player's hand.
+     * @param dealer the dealer's hand.
+     * @return the outcome of the player's hand.
+     */
+    public static Outcome settle(BlackjackPlayer player, BlackjackPlayer dealer) {
+        if (player.isBusted()) {
+            return Outcome.LOSS;
+        } else if (player.isNatural()) {
+            // Two Blackjacks tie, even if the player never turned the hidden card up
+            return dealer.isNatural() ? Outcome.PUSH : Outcome.BLACKJACK;
+        } else if (dealer.isNatural()) {
+            return Outcome.LOSS;
+        } else if (dealer.isBusted()) {
+            return Outcome.WIN;
+        } else if (player.getScore() > dealer.getScore()) {
+            return Outcome.WIN;
+        } else if (dealer.getScore() > player.getScore()) {
+            return Outcome.LOSS;
+        }
+        return Outcome.PUSH;
+    }
+
+    /**
+     * Works out the expected value of each decision for a player's hand from what
+     * the player can see: their own cards, including their hidden card, and the
+     * dealer's upcard. Every card the player has not seen, including the
+     * dealer's and other players' hidden cards, is treated as still in the shoe.
+     *
+     * @param player the player asking for a hint.
+     * @return the expected value of each decision.
+     */
+    public ExpectedValues hint(BlackjackPlayer player) {
+        int[] counts = deck.getComposition(new int[11]);
+
+        // Hidden cards are as unknown to the player as the rest of the shoe
+        if (dealer.getHiddenCard() != null) {
+            counts[dealer.getHiddenCard().getPoints()]++;
+        }
+        for (BlackjackPlayer other : players) {
+            if (other != player && other.getHiddenCard() != null) {
+                counts[other.getHiddenCard().getPoints()]++;
             }
         }
 
-        // Handle dealer's turn
-        dealer.play(deck);
+        int hand = player.getPackedHand();
+        BlackjackCard first = player.getHiddenCard();
+        if (first != null) {
+            hand = PackedHand.add(hand, first.getValue());
+        } else if (!player.getHand().isEmpty()) {
+            first = player.getHand().get(0);
+        }
 
-        // Determine and declare the winner of the game
-        declareWinner();
+        int pairPoints = 0;
+        if (PackedHand.cardCount(hand) == 2) {
+            BlackjackCard second = player.getHand().get(player.getHiddenCard() != null ? 0 : 1);
+            if (first.getPoints() == second.getPoints()) {
+                pairPoints = first.getPoints();
+            }
+        }
+
+        return ExpectedValueSolver.forCurrentThread(dealer.getRules()).solve(hand, pairPoints, dealer.getUpcard().getPoints(),
+                counts);
+    }
+
+    /**
+     * @return the deck of cards used in the game.
+     */
+    public BlackjackDeck getDeck() {
+        return deck;
+    }
+
+    /**
+     * @return the dealer of the game.
+     */
+    public Dealer getDealer() {
+        return dealer;
     }
 
     /**
@@ -82,27 +584,32 @@ public class BlackjackGame extends Game {
      */
     @Override
     public void declareWinner() {
-        System.out.println("Dealer's score: " + dealer.getScore() + "\n");
+        output.println("Dealer's score: " + dealer.getScore() + "\n");
 
         for (BlackjackPlayer player : players) {
-            if (player.isBusted()) {
+            if (player.isNatural() && !dealer.isNatural()) {
+                // A natural beats any other 21 and pays 3:2
+                output.println(player.getName() + " wins with a Blackjack!");
+            } else if (dealer.isNatural() && !player.isNatural() && !player.isBusted()) {
+                output.println("Dealer wins against " + player.getName() + " with a Blackjack!");
+            } else if (player.isBusted()) {
                 // Player busted, dealer wins
-                System.out.println("Dealer wins against " + player.getName() + "! Player busted with a score of "
+                output.println("Dealer wins against " + player.getName() + "! Player busted with a score of "
                         + player.getScore());
             } else if (dealer.isBusted()) {
                 // Dealer busted, player wins
-                System.out.println(player.getName() + " wins! Dealer busted with a score of " + dealer.getScore());
+                output.println(player.getName() + " wins! Dealer busted with a score of " + dealer.getScore());
             } else if (player.getScore() > dealer.getScore()) {
                 // Player has a higher score without busting
-                System.out.println(
+                output.println(
                         player.getName() + " wins with a score of " + player.getScore() + " to " + dealer.getScore());
             } else if (dealer.getScore() > player.getScore()) {
                 // Dealer has a higher score without busting
-                System.out.println("Dealer wins against " + player.getName() + " with a score of " + dealer.getScore()
+                output.println("Dealer wins against " + player.getName() + " with a score of " + dealer.getScore()
                         + " to " + player.getScore());
             } else {
                 // It's a tie
-                System.out.println("It's a tie between " + player.getName() + " and the dealer! Both have a score of "
+                output.println("It's a tie between " + player.getName() + " and the dealer! Both have a score of "
                         + player.getScore());
             }
         }
@@ -13,12 +13,21 @@ public class BlackjackPlayer extends Player {
     /** The list of cards in the player's hand. */
     private ArrayList<BlackjackCard> hand;
 
-    /** The player's score based on the cards in their hand. */
-    private int score;
+    /** The cards in the player's hand packed for scoring, see {@link PackedHand}. */
+    private int packedHand;
 
     /** The card that remains hidden until the player decides to reveal it. */
     private BlackjackCard hiddenCard;
 
+    /** The strategy used to play headlessly, or null for a console player. */
+    private PlayerStrategy strategy;
+
+    /** Whether the player doubled their bet on this hand. */
+    private boolean doubled;
+
+    /** The game the player is seated at, used to give hints. */
+    private BlackjackGame game;
+
     /**
      * Constructs a new Blackjack player with a given name.
      *
@@ -27,7 +36,19 @@ public class BlackjackPlayer extends Player {
     public BlackjackPlayer(String name) {
         super(name);
         hand = new ArrayList<>();
-        score = 0;
+        packedHand = PackedHand.EMPTY;
+    }
+
+    /**
+     * Constructs a new Blackjack player whose decisions are made by a strategy
+     * instead of the console.
+     *
+     * @param name     the name of the player.
+     * @param strategy the strategy that decides how to play each hand.
+     */
+    public BlackjackPlayer(String name, PlayerStrategy strategy) {
+        this(name);
+        this.strategy = strategy;
     }
 
     /**
@@ -41,7 +62,7 @@ public class BlackjackPlayer extends Player {
             hiddenCard = card;
         } else {
             hand.add(card);
-            calculateScore();
+            packedHand = PackedHand.add(packedHand, card.getValue());
         }
     }
 
@@ -51,37 +72,17 @@ public class BlackjackPlayer extends Player {
     public void revealHiddenCard() {
         if (hiddenCard != null) {
             hand.add(0, hiddenCard);
+            packedHand = PackedHand.add(packedHand, hiddenCard.getValue());
             hiddenCard = null;
-            calculateScore();
         }
     }
 
     /**
-     * Calculates the score of the player's hand based on Blackjack rules.
+     * Recalculates the score of the player's hand from scratch based on Blackjack
+     * rules.
      */
     private void calculateScore() {
-        int total = 0;
-        int aceCount = 0;
-        for (BlackjackCard card : hand) {
-            if (card.toString().startsWith("A")) {
-                aceCount++;
-                total += 11;
-            } else if (card.toString().startsWith("K") ||
-                    card.toString().startsWith("Q") ||
-                    card.toString().startsWith("J")) {
-                total += 10;
-            } else {
-                total += card.getValue();
-            }
-        }
-
-        // Adjusting for Aces if the total is greater than 21
-        while (total > 21 && aceCount > 0) {
-            total -= 10;
-            aceCount--;
-        }
-
-        this.score = total;
+        packedHand = PackedHand.of(hand);
     }
 
     /**
@@ -90,7 +91,37 @@ public class BlackjackPlayer extends Player {
      * @return true if the player is busted, false otherwise.
      */
     public boolean isBusted() {
-        return score > 21;
+        return getScore() > 21;
+    }
+
+    /**
+     * Determines if the player's score counts an Ace as 11.
+     *
+     * @return true if the hand is soft, false otherwise.
+     */
+    public boolean isSoft() {
+        return PackedHand.isSoft(packedHand);
+    }
+
+    /**
+     * @return true if the first card dealt is still hidden, false otherwise.
+     */
+    public boolean hasHiddenCard() {
+        return hiddenCard != null;
+    }
+
+    /**
+     * Determines if the player was dealt a natural Blackjack: exactly two cards,
+     * including the hidden card, worth 21.
+     *
+     * @return true if the hand is a natural Blackjack, false otherwise.
+     */
+    public boolean isNatural() {
+        if (hand.size() + (hiddenCard != null ? 1 : 0) != 2) {
+            return false;
+        }
+        int cards = hiddenCard != null ? PackedHand.add(packedHand, hiddenCard.getValue()) : packedHand;
+        return PackedHand.score(cards) == 21;
     }
 
     /**
@@ -99,7 +130,7 @@ public class BlackjackPlayer extends Player {
      * @return true if the player has a Blackjack, false otherwise.
      */
     public boolean hasBlackjack() {
-        return score == 21;
+        return getScore() == 21;
     }
 
     /**
@@ -110,60 +141,203 @@ public class BlackjackPlayer extends Player {
      */
     @Override
     public void play(BlackjackDeck deck) {
-        Scanner scanner = Main.SCANNER;
-        String decision;
-
+        Decision decision;
         do {
-            System.out.println("Your current hand: " + getHand());
-            System.out.println("Your current score: " + getScore());
-            System.out.println("Do you want to hit, stand, or view hidden card? (Enter 'hit', 'stand' or 'view')");
-
-            decision = scanner.nextLine().toLowerCase();
-            System.out.println();
-
-            if ("hit".equals(decision)) {
+            decision = readDecision();
+            if (decision == Decision.HIT) {
                 BlackjackCard drawnCard = deck.drawCard();
                 addCardToHand(drawnCard);
-                System.out.println("You drew: " + drawnCard);
-
-                // If drawn card is Ace, ask the player to decide its value
-                if (drawnCard.toString().startsWith("A")) {
-                    System.out.println("You drew an Ace! Would you like its value to be 1 or 11?");
-                    int choice;
-                    while (true) {
-                        try {
-                            choice = Integer.parseInt(Main.SCANNER.nextLine());
-                            if (choice == 1 || choice == 11) {
-                                // Logic to set Ace value
-                                if (choice == 1) {
-                                    // Set Ace value to 1
-                                    setAceValue(1, drawnCard);
-                                }
-                                break;
-                            } else {
-                                System.out.println("Invalid choice. Please enter 1 or 11.");
-                            }
-                        } catch (NumberFormatException e) {
-                            System.out.println("Invalid choice. Please enter 1 or 11.");
-                        }
-                    }
-                }
+                announceCard(drawnCard);
+            }
+        } while (decision == Decision.HIT && !isBusted());
+        getOutput().clearScreen();
+    }
 
-                if (isBusted()) {
-                    System.out.println("You busted with a score of " + getScore() + "!");
-                    break;
-                }
+    /**
+     * Asks the console for the player's next decision. Viewing the hidden card
+     * and asking for a hint are handled here and do not end the prompt.
+     *
+     * @return {@link Decision#HIT} or {@link Decision#STAND}.
+     */
+    public Decision readDecision() {
+        Scanner scanner = Main.scanner();
+        OutputSink output = getOutput();
+
+        while (true) {
+            output.println("Your current hand: " + getHand());
+            output.println("Your current score: " + getScore());
+            output.println("Do you want to hit, stand, view hidden card, or get a hint? "
+                    + "(Enter 'hit', 'stand', 'view' or 'hint')");
+            output.flush();
+
+            String decision = scanner.nextLine().toLowerCase();
+            output.println();
+
+            if ("hit".equals(decision)) {
+                return Decision.HIT;
             } else if ("stand".equals(decision)) {
-                System.out.println("You decided to stand with a score of " + getScore() + ".");
-                break; // Explicitly break out of the loop
+                output.println("You decided to stand with a score of " + getScore() + ".");
+                return Decision.STAND;
             } else if ("view".equals(decision)) {
                 revealHiddenCard();
-                System.out.println("Your hidden card was: " + getHand().get(0));
+                output.println("Your hidden card was: " + getHand().get(0));
+            } else if ("hint".equals(decision)) {
+                if (game != null) {
+                    output.println("Expected value per unit bet: " + game.hint(this));
+                } else {
+                    output.println("Hints are only available at a table.");
+                }
             } else {
-                System.out.println("Invalid choice. Please enter 'hit' or 'stand'.");
+                output.println("Invalid choice. Please enter 'hit' or 'stand'.");
             }
-        } while (!"stand".equals(decision) && !isBusted());
-        clearScreen();
+        }
+    }
+
+    /**
+     * Shows the player a card they drew on the console. If the card is an Ace,
+     * the player chooses whether it counts as 1 or 11.
+     *
+     * @param drawnCard the card drawn, already added to the hand.
+     */
+    public void announceCard(BlackjackCard drawnCard) {
+        OutputSink output = getOutput();
+        output.println("You drew: " + drawnCard);
+
+        // If drawn card is Ace, ask the player to decide its value
+        if (drawnCard.getValue() == 1) {
+            output.println("You drew an Ace! Would you like its value to be 1 or 11?");
+            int choice;
+            while (true) {
+                output.flush();
+                try {
+                    choice = Integer.parseInt(Main.scanner().nextLine());
+                    if (choice == 1 || choice == 11) {
+                        // Logic to set Ace value
+                        if (choice == 1) {
+                            // Set Ace value to 1
+                            countAceAsOne();
+                        }
+                        break;
+                    } else {
+                        output.println("Invalid choice. Please enter 1 or 11.");
+                    }
+                } catch (NumberFormatException e) {
+                    output.println("Invalid choice. Please enter 1 or 11.");
+                }
+            }
+        }
+
+        if (isBusted()) {
+            output.println("You busted with a score of " + getScore() + "!");
+        }
+    }
+
+    /**
+     * Plays the player's turn using their strategy, without any console input or
+     * output. The hidden card is revealed first since the player can always look
+     * at it.
+     *
+     * @param deck         the deck of cards to draw from.
+     * @param dealerUpcard the point value of the dealer's visible card.
+     */
+    public void autoPlay(BlackjackDeck deck, int dealerUpcard) {
+        revealHiddenCard();
+        while (!isBusted()) {
+            Decision decision = chooseDecision(dealerUpcard);
+            if (decision == Decision.STAND) {
+                break;
+            }
+            if (decision == Decision.DOUBLE) {
+                doubleDown();
+                addCardToHand(deck.drawCard());
+                break;
+            }
+            addCardToHand(deck.drawCard());
+        }
+    }
+
+    /**
+     * Asks the player's strategy for a decision it is allowed to make. Doubling
+     * is only possible on the first two cards, and a single seat cannot split,
+     * so in those cases the player hits instead.
+     *
+     * @param dealerUpcard the point value of the dealer's visible card.
+     * @return {@link Decision#HIT}, {@link Decision#STAND} or
+     *         {@link Decision#DOUBLE}.
+     */
+    public Decision chooseDecision(int dealerUpcard) {
+        Decision decision = strategy.decide(this, dealerUpcard);
+        if (decision == Decision.SPLIT
+                || (decision == Decision.DOUBLE && PackedHand.cardCount(packedHand) != 2)) {
+            return Decision.HIT;
+        }
+        return decision;
+    }
+
+    /**
+     * Doubles the player's bet on this hand. The caller deals the one card that
+     * follows.
+     */
+    public void doubleDown() {
+        doubled = true;
+    }
+
+    /**
+     * @return true if the player doubled their bet on this hand.
+     */
+    public boolean isDoubled() {
+        return doubled;
+    }
+
+    /**
+     * @return the number of units bet on this hand: 2 if doubled, otherwise 1.
+     */
+    public int getBetUnits() {
+        return doubled ? 2 : 1;
+    }
+
+    /**
+     * @return the card that is still hidden, or null if it has been revealed.
+     */
+    public BlackjackCard getHiddenCard() {
+        return hiddenCard;
+    }
+
+    /**
+     * @return the game the player is seated at, or null if none.
+     */
+    public BlackjackGame getGame() {
+        return game;
+    }
+
+    /**
+     * @param game the game the player is seated at.
+     */
+    public void setGame(BlackjackGame game) {
+        this.game = game;
+    }
+
+    /**
+     * @return where the player's console turn is shown: the game's sink when
+     *         seated at a game, otherwise the terminal.
+     */
+    public OutputSink getOutput() {
+        return game != null ? game.getOutput() : TerminalSink.STDOUT;
+    }
+
+    /**
+     * @return the strategy used to play headlessly, or null for a console player.
+     */
+    public PlayerStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @param strategy the strategy used to play headlessly, or null for a console
+     *                 player.
+     */
+    public void setStrategy(PlayerStrategy strategy) {
+        this.strategy = strategy;
     }
 
     /**
@@ -187,47 +361,32 @@ public class BlackjackPlayer extends Player {
      * @return the player's current score.
      */
     public int getScore() {
-        return score;
+        return PackedHand.score(packedHand);
     }
 
     /**
-     * Sets the value for an Ace card and recalculates the score.
-     *
-     * @param value the value to set for the Ace.
-     * @param card  the Ace card to set the value for.
+     * @return the cards in the player's hand packed for scoring, see
+     *         {@link PackedHand}.
      */
-    private void setAceValue(int value, BlackjackCard card) {
-        card.setValue(value);
-        calculateScore();
+    public int getPackedHand() {
+        return packedHand;
     }
 
     /**
-     * Resets the player's hand and score for a new game.
+     * Counts one of the Aces in the hand as 1 from now on. Cards are shared, so
+     * the choice is kept in the hand's score rather than on the card.
      */
-    public void resetHand() {
-        hand.clear();
-        hiddenCard = null;
-        score = 0;
+    private void countAceAsOne() {
+        packedHand = PackedHand.countAceAsOne(packedHand);
     }
 
     /**
-     * Clears the terminal screen.
+     * Resets the player's hand and score for a new game.
      */
-    public static void clearScreen() {
-        for (int i = 0; i < 100; i++) {
-            System.out.println();
-        }
+    public void resetHand() {
+        hand.clear();
+        hiddenCard = null;
+        packedHand = PackedHand.EMPTY;
+        doubled = false;
     }
-
-//    public static void clearScreen() {
-//        try {
-//            if (System.getProperty("os.name").contains("Windows")) {
-//                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-//            } else {
-//                System.out.print("\033[H\033[2J");
-//            }
-//        } catch (Exception e) {
-//            e.printStackTrace();
-//        }
-//    }
 }
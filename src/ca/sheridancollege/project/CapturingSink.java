@@ -0,0 +1,75 @@
+package ca.sheridancollege.project;
+
+/**
+ * Keeps everything written to it in memory, so a test or script can check
+ * what the game showed.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class CapturingSink implements OutputSink {
+
+    // Everything printed so far
+    private final StringBuilder output = new StringBuilder();
+
+    // Number of times the screen was cleared
+    private int clears;
+
+    // Number of frames shown
+    private int frames;
+
+    /**
+     * Adds text to the captured output.
+     *
+     * @param text the text to show.
+     */
+    @Override
+    public synchronized void print(String text) {
+        output.append(text);
+    }
+
+    /**
+     * Counts a screen clear. Captured output is kept.
+     */
+    @Override
+    public synchronized void clearScreen() {
+        clears++;
+    }
+
+    /**
+     * Counts a frame.
+     */
+    @Override
+    public synchronized void flush() {
+        frames++;
+    }
+
+    /**
+     * @return everything printed so far.
+     */
+    public synchronized String getOutput() {
+        return output.toString();
+    }
+
+    /**
+     * @return the number of times the screen was cleared.
+     */
+    public synchronized int getClears() {
+        return clears;
+    }
+
+    /**
+     * @return the number of frames shown.
+     */
+    public synchronized int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Forgets everything captured so far.
+     */
+    public synchronized void reset() {
+        output.setLength(0);
+        clears = 0;
+        frames = 0;
+    }
+}
@@ -0,0 +1,149 @@
+package ca.sheridancollege.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One client connected to the {@link GameServer}. Incoming bytes are split into
+ * lines by the server's selector thread; outgoing lines can be queued from any
+ * thread and are written by the selector thread when the socket is ready.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class ClientConnection {
+
+    /** Longest line a client may send, in bytes. */
+    public static final int MAX_LINE = 256;
+
+    // The client's socket
+    private final SocketChannel channel;
+
+    // The server that owns the socket
+    private final GameServer server;
+
+    // Bytes read but not yet split into lines
+    private final ByteBuffer input = ByteBuffer.allocate(MAX_LINE);
+
+    // Lines waiting to be written
+    private final Queue<ByteBuffer> output = new ConcurrentLinkedQueue<>();
+
+    // Set while the server has been asked to write this connection's output
+    private final AtomicBoolean writeRequested = new AtomicBoolean();
+
+    // Set once the connection should be closed after its output is written
+    private volatile boolean closing;
+
+    // The name the client joined with, or null before joining
+    private volatile String name;
+
+    // The table the client is seated at, or null before joining
+    private volatile ServerTable table;
+
+    /**
+     * Constructs a new connection.
+     *
+     * @param channel the client's socket.
+     * @param server  the server that owns the socket.
+     */
+    ClientConnection(SocketChannel channel, GameServer server) {
+        this.channel = channel;
+        this.server = server;
+    }
+
+    /**
+     * Queues a line to be sent to the client. Safe to call from any thread.
+     *
+     * @param line the line, without the trailing newline.
+     */
+    public void send(String line) {
+        output.add(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII)));
+        if (writeRequested.compareAndSet(false, true)) {
+            server.requestWrite(this);
+        }
+    }
+
+    /**
+     * Writes as much queued output as the socket accepts.
+     *
+     * @return true if everything queued has been written.
+     * @throws IOException if the socket fails.
+     */
+    boolean flush() throws IOException {
+        ByteBuffer next;
+        while ((next = output.peek()) != null) {
+            channel.write(next);
+            if (next.hasRemaining()) {
+                return false;
+            }
+            output.poll();
+        }
+        writeRequested.set(false);
+        // A line may have been queued after the loop but before the flag was cleared
+        if (!output.isEmpty() && writeRequested.compareAndSet(false, true)) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stops reading from the client and closes the connection once everything
+     * queued has been written, so a final error reaches the client.
+     */
+    void closeAfterFlush() {
+        closing = true;
+    }
+
+    /**
+     * @return true if the connection is closed once its output is written.
+     */
+    boolean isClosing() {
+        return closing;
+    }
+
+    /**
+     * @return the buffer incoming bytes are read into.
+     */
+    ByteBuffer getInput() {
+        return input;
+    }
+
+    /**
+     * @return the client's socket.
+     */
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return the name the client joined with, or null before joining.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name the name the client joined with.
+     */
+    void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the table the client is seated at, or null before joining.
+     */
+    public ServerTable getTable() {
+        return table;
+    }
+
+    /**
+     * @param table the table the client is seated at.
+     */
+    void setTable(ServerTable table) {
+        this.table = table;
+    }
+}
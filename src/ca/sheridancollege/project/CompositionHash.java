@@ -0,0 +1,69 @@
+package ca.sheridancollege.project;
+
+/**
+ * Zobrist hashing of a shoe composition (the number of cards left of each
+ * point value). Each (point value, count) pair has a fixed random key and the
+ * hash is the XOR of the keys for the current counts, so removing a card only
+ * swaps one key for another instead of rehashing the whole composition.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public final class CompositionHash {
+
+    /** Largest count of any point value: ten point cards in an eight deck shoe. */
+    public static final int MAX_COUNT = 16 * BlackjackDeck.MAX_DECKS;
+
+    // Random key for each point value (1-10) and count (0-MAX_COUNT)
+    private static final long[][] KEYS = new long[11][MAX_COUNT + 1];
+
+    static {
+        // Fixed seed so hashes are the same in every run
+        RandomSource random = new XoroshiroRandomSource(0x5EED_C0DEL);
+        for (int points = 1; points <= 10; points++) {
+            for (int count = 0; count <= MAX_COUNT; count++) {
+                KEYS[points][count] = random.nextLong();
+            }
+        }
+    }
+
+    private CompositionHash() {
+    }
+
+    /**
+     * Hashes a whole composition.
+     *
+     * @param counts the cards left by point value, indexed 1-10.
+     * @return the hash of the composition.
+     */
+    public static long of(int[] counts) {
+        long hash = 0;
+        for (int points = 1; points <= 10; points++) {
+            hash ^= KEYS[points][counts[points]];
+        }
+        return hash;
+    }
+
+    /**
+     * Updates a hash for one card being removed.
+     *
+     * @param hash   the hash before the card was removed.
+     * @param points the point value of the card.
+     * @param before the number of cards of that value before it was removed.
+     * @return the hash after the card was removed.
+     */
+    public static long remove(long hash, int points, int before) {
+        return hash ^ KEYS[points][before] ^ KEYS[points][before - 1];
+    }
+
+    /**
+     * Updates a hash for one card being put back.
+     *
+     * @param hash   the hash before the card was put back.
+     * @param points the point value of the card.
+     * @param before the number of cards of that value before it was put back.
+     * @return the hash after the card was put back.
+     */
+    public static long add(long hash, int points, int before) {
+        return hash ^ KEYS[points][before] ^ KEYS[points][before + 1];
+    }
+}
@@ -0,0 +1,169 @@
+package ca.sheridancollege.project;
+
+/**
+ * Keeps track of the cards left in a {@link BlackjackDeck}, updated as each
+ * card is drawn, so strategies, expected value calculations and surveillance
+ * can read the shoe's composition without rescanning it. For each point value
+ * it keeps the number of cards left, and alongside them the running count of
+ * every {@link CountSystem}. Drawing a card updates them in constant time,
+ * and nothing is allocated after construction.
+ *
+ * <p>
+ * Drawing is on the hot path of every simulation, so the running counts are
+ * packed into one long, sixteen bits per system, and each point value's tags
+ * are packed the same way: one addition updates every count at once. The
+ * counts are signed, so a lane may borrow from the one above it; reading a
+ * count takes the lanes below it back out first.
+ *
+ * <p>
+ * A tracker belongs to its deck and, like the deck, is not thread safe.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class CompositionTracker {
+
+    // Every count system, cached so updates do not copy the values array
+    private static final CountSystem[] SYSTEMS = CountSystem.values();
+
+    // Number of decks in the shoe
+    private final int decks;
+
+    // Cards left by point value, indexed 1-10
+    private final int[] counts = new int[11];
+
+    // Total cards left
+    private int remaining;
+
+    // Bits given to each system's running count in the packed counts
+    private static final int LANE_BITS = 16;
+
+    // Every system's tag for each point value, packed, indexed 1-10
+    private static final long[] PACKED_TAGS = new long[11];
+
+    static {
+        for (CountSystem system : SYSTEMS) {
+            for (int points = 1; points <= 10; points++) {
+                PACKED_TAGS[points] += (long) system.tag(points) << (LANE_BITS * system.ordinal());
+            }
+        }
+    }
+
+    // Every system's running count, packed
+    private long runningCounts;
+
+    /**
+     * Constructs a tracker for a full shoe.
+     *
+     * @param decks the number of decks in the shoe.
+     */
+    public CompositionTracker(int decks) {
+        this.decks = decks;
+        reset();
+    }
+
+    /**
+     * Starts again from a full shoe, as after a shuffle.
+     */
+    public void reset() {
+        for (int points = 1; points < 10; points++) {
+            counts[points] = 4 * decks;
+        }
+        counts[10] = 16 * decks;
+        remaining = 52 * decks;
+        runningCounts = 0;
+        for (CountSystem system : SYSTEMS) {
+            runningCounts += (long) system.initialCount(decks) << (LANE_BITS * system.ordinal());
+        }
+    }
+
+    /**
+     * Records a card leaving the shoe.
+     *
+     * @param points the card's point value.
+     */
+    public void remove(int points) {
+        counts[points]--;
+        remaining--;
+        runningCounts += PACKED_TAGS[points];
+    }
+
+    /**
+     * Records a card going back into the shoe, as when a deck is rewound.
+     *
+     * @param points the card's point value.
+     */
+    public void add(int points) {
+        counts[points]++;
+        remaining++;
+        runningCounts -= PACKED_TAGS[points];
+    }
+
+    /**
+     * @param points a point value, 1 for an Ace to 10.
+     * @return the number of cards of that value left.
+     */
+    public int getCount(int points) {
+        return counts[points];
+    }
+
+    /**
+     * Copies the cards left by point value.
+     *
+     * @param counts an array of at least 11 elements; counts[p] is set to the
+     *               number of cards left worth p points.
+     * @return the counts array.
+     */
+    public int[] getComposition(int[] counts) {
+        System.arraycopy(this.counts, 0, counts, 0, 11);
+        return counts;
+    }
+
+    /**
+     * @return the total number of cards left.
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * @param system a count system.
+     * @return the system's running count.
+     */
+    public int getRunningCount(CountSystem system) {
+        long packed = runningCounts;
+        for (int i = 0; i < system.ordinal(); i++) {
+            packed = (packed - (short) packed) >> LANE_BITS;
+        }
+        return (short) packed;
+    }
+
+    /**
+     * Works out the true count: the running count per deck left in the shoe.
+     * For an unbalanced system the running count is already meant to be used
+     * as is, so it is returned unchanged.
+     *
+     * @param system a count system.
+     * @return the system's true count.
+     */
+    public double getTrueCount(CountSystem system) {
+        int running = getRunningCount(system);
+        if (!system.isBalanced() || remaining == 0) {
+            return running;
+        }
+        return running * 52.0 / remaining;
+    }
+
+    /**
+     * @return the {@link CompositionHash} of the cards left.
+     */
+    public long getHash() {
+        return CompositionHash.of(counts);
+    }
+
+    /**
+     * @return the number of decks in the shoe.
+     */
+    public int getDecks() {
+        return decks;
+    }
+}
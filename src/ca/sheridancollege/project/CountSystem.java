@@ -0,0 +1,75 @@
+package ca.sheridancollege.project;
+
+/**
+ * Represents the card counting systems a {@link CompositionTracker} keeps a
+ * count for. Each system gives every point value a tag that is added to the
+ * running count when a card of that value leaves the shoe.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public enum CountSystem {
+
+    /** High-Low: 2-6 count +1, 7-9 count 0, tens and Aces count -1. */
+    HI_LO(new int[] { 0, -1, 1, 1, 1, 1, 1, 0, 0, 0, -1 }, true, 0),
+
+    /**
+     * Knock-Out: like High-Low but 7 also counts +1. It is unbalanced, so the
+     * count starts below zero and needs no conversion to a true count. The
+     * published starting count is 4 - 4 &times; decks (-20 for six decks), so
+     * counting a whole shoe ends at +4.
+     */
+    KO(new int[] { 0, -1, 1, 1, 1, 1, 1, 1, 0, 0, -1 }, false, 4),
+
+    /**
+     * Omega II: 2, 3 and 7 count +1, 4-6 count +2, 9 counts -1, tens count -2,
+     * and 8 and Aces count 0.
+     */
+    OMEGA_II(new int[] { 0, 0, 1, 1, 2, 2, 2, 1, 0, -1, -2 }, true, 0);
+
+    // Tag of each point value, indexed 1-10
+    private final int[] tags;
+
+    // Whether a full shoe counts to zero
+    private final boolean balanced;
+
+    // What counting a whole shoe ends at, from the system's published start
+    private final int endCount;
+
+    CountSystem(int[] tags, boolean balanced, int endCount) {
+        this.tags = tags;
+        this.balanced = balanced;
+        this.endCount = endCount;
+    }
+
+    /**
+     * @param points a card's point value, 1 for an Ace to 10.
+     * @return the amount a card of that value adds to the running count when it
+     *         is dealt.
+     */
+    public int tag(int points) {
+        return tags[points];
+    }
+
+    /**
+     * @return true if a full shoe counts to zero.
+     */
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    /**
+     * Works out the running count of a freshly shuffled shoe: zero for a
+     * balanced system, and for an unbalanced one its published starting count,
+     * which counting every card in the shoe takes to the system's end count.
+     *
+     * @param decks the number of decks in the shoe.
+     * @return the initial running count.
+     */
+    public int initialCount(int decks) {
+        int sum = 0;
+        for (int points = 1; points <= 10; points++) {
+            sum += tags[points] * (points == 10 ? 16 : 4);
+        }
+        return endCount - sum * decks;
+    }
+}
@@ -8,6 +8,9 @@ package ca.sheridancollege.project;
  */
 public class Dealer extends BlackjackPlayer {
 
+    // Plays the dealer's turn under the table's house rules
+    private DealerEngine engine = DealerEngine.of(HouseRules.DEFAULT);
+
     /**
      * Constructs a new Dealer with the predefined name "Dealer".
      */
@@ -15,17 +18,39 @@ public class Dealer extends BlackjackPlayer {
         super("Dealer");
     }
 
+    /**
+     * Gets the dealer's visible card.
+     *
+     * @return the face-up card dealt to the dealer.
+     */
+    public BlackjackCard getUpcard() {
+        return getHand().get(hasHiddenCard() ? 0 : 1);
+    }
+
     /**
      * Facilitates the dealer's turn.
-     * According to Blackjack rules, the dealer must hit until their score is at
-     * least 17.
+     * According to Blackjack rules, the dealer reveals the hidden card and must
+     * hit until their score is at least 17, and also hits a soft 17 if the
+     * house rules say so.
      *
      * @param deck the deck of cards to draw from.
      */
     @Override
     public void play(BlackjackDeck deck) {
-        while (getScore() < 17) {
-            addCardToHand(deck.drawCard());
-        }
+        engine.play(this, deck);
+    }
+
+    /**
+     * @return the house rules the dealer plays by.
+     */
+    public HouseRules getRules() {
+        return engine.getRules();
+    }
+
+    /**
+     * @param rules the house rules the dealer plays by.
+     */
+    public void setRules(HouseRules rules) {
+        engine = DealerEngine.of(rules);
     }
 }
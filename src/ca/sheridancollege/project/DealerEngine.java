@@ -0,0 +1,73 @@
+package ca.sheridancollege.project;
+
+/**
+ * Plays the dealer's hand under one set of {@link HouseRules}. Each rule set
+ * is compiled once, when the class is loaded, into a table saying whether the
+ * dealer draws in each {@link PackedHand} scoring state, so the dealer's turn
+ * is a loop of table lookups that never looks at the rules themselves. Every
+ * engine is shared and immutable.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public final class DealerEngine {
+
+    // The engine of each rule set, indexed by HouseRules#index()
+    private static final DealerEngine[] ENGINES = new DealerEngine[HouseRules.COUNT];
+
+    static {
+        for (HouseRules rules : HouseRules.values()) {
+            ENGINES[rules.index()] = new DealerEngine(rules);
+        }
+    }
+
+    // The rules the table was compiled from
+    private final HouseRules rules;
+
+    // Whether the dealer draws, indexed by scoring state
+    private final boolean[] draws = new boolean[PackedHand.STATES];
+
+    private DealerEngine(HouseRules rules) {
+        this.rules = rules;
+        for (int state = 0; state < PackedHand.STATES; state++) {
+            int score = PackedHand.score(state);
+            draws[state] = score < 17 || score == 17 && PackedHand.isSoft(state) && rules.hitsSoft17();
+        }
+    }
+
+    /**
+     * @param rules the house rules.
+     * @return the engine that plays the dealer's hand under the rules.
+     */
+    public static DealerEngine of(HouseRules rules) {
+        return ENGINES[rules.index()];
+    }
+
+    /**
+     * Plays the dealer's turn: reveals the hidden card and draws until the
+     * rules say to stand.
+     *
+     * @param dealer the dealer.
+     * @param deck   the deck of cards to draw from.
+     */
+    public void play(Dealer dealer, BlackjackDeck deck) {
+        dealer.revealHiddenCard();
+        while (draws[PackedHand.state(dealer.getPackedHand())]) {
+            dealer.addCardToHand(deck.drawCard());
+        }
+    }
+
+    /**
+     * @param hand a dealer's packed hand.
+     * @return true if the dealer draws another card to the hand.
+     */
+    public boolean draws(int hand) {
+        return draws[PackedHand.state(hand)];
+    }
+
+    /**
+     * @return the rules the engine plays by.
+     */
+    public HouseRules getRules() {
+        return rules;
+    }
+}
@@ -0,0 +1,258 @@
+package ca.sheridancollege.project;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates the exact probability of each final dealer total for a given
+ * upcard and the cards left in the shoe, following the same {@link DealerEngine}
+ * draw table as {@link Dealer#play(BlackjackDeck)}.
+ *
+ * <p>
+ * Every possible sequence of dealer draws is enumerated recursively. The
+ * result for each (dealer hand, shoe composition) pair is remembered, keyed by
+ * the composition packed into a long, so sequences that reach the same state
+ * in a different order are only worked out once and repeated queries are
+ * answered from the cache.
+ *
+ * <p>
+ * Under house rules where the dealer peeks, the players only act once the
+ * dealer is known not to have a Blackjack, so the hidden card is drawn from
+ * the cards that do not complete one and {@link #NATURAL} is always 0.
+ *
+ * <p>
+ * A calculator is not thread safe; use one per thread.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class DealerOutcomeCalculator {
+
+    /** Index of the probability that the dealer finishes on 17. */
+    public static final int FINAL_17 = 0;
+
+    /**
+     * Index of the probability that the dealer finishes on 21 with three or
+     * more cards.
+     */
+    public static final int FINAL_21 = 4;
+
+    /** Index of the probability that the dealer busts. */
+    public static final int BUST = 5;
+
+    /**
+     * Index of the probability that the dealer has a Blackjack, which beats
+     * every player hand but a Blackjack.
+     */
+    public static final int NATURAL = 6;
+
+    /** Number of possible outcomes: 17 to 21, bust and Blackjack. */
+    public static final int OUTCOMES = 7;
+
+    /** Number of cache entries kept before the cache is cleared. */
+    public static final int MAX_CACHE_SIZE = 1 << 20;
+
+    // Bits used for each point value's count in the composition key;
+    // ten point cards need more since there are four ranks of them
+    private static final int BITS_PER_RANK = 6;
+    private static final int TEN_BITS = 8;
+
+    // Number of dealer hand states: hard total (0-31) times Ace or no Ace
+    // times one card or more, since only a one card hand can draw a Blackjack
+    private static final int HAND_STATES = 128;
+
+    // Decides whether the dealer draws to each hand
+    private final DealerEngine engine;
+
+    // Whether the dealer is known not to have a Blackjack
+    private final boolean peeks;
+
+    // Cached outcome probabilities, one map per dealer hand state
+    private final List<Map<Long, double[]>> cache = new ArrayList<>(HAND_STATES);
+
+    // Number of entries in all of the maps
+    private int cacheSize;
+
+    /**
+     * Constructs a new calculator with an empty cache, for the default house
+     * rules.
+     */
+    public DealerOutcomeCalculator() {
+        this(HouseRules.DEFAULT);
+    }
+
+    /**
+     * Constructs a new calculator with an empty cache.
+     *
+     * @param rules the house rules the dealer plays by.
+     */
+    public DealerOutcomeCalculator(HouseRules rules) {
+        engine = DealerEngine.of(rules);
+        peeks = rules.peeks();
+        for (int i = 0; i < HAND_STATES; i++) {
+            cache.add(new HashMap<Long, double[]>());
+        }
+    }
+
+    /**
+     * Calculates the probability of each final dealer total.
+     *
+     * @param upcard the point value of the dealer's visible card (1 for an Ace).
+     * @param counts the cards left in the shoe by point value, see
+     *               {@link BlackjackDeck#getComposition(int[])}. The upcard
+     *               must already have been removed. The array is used as
+     *               scratch space but is left unchanged.
+     * @return the probabilities indexed from {@link #FINAL_17} to
+     *         {@link #FINAL_21}, then {@link #BUST} and {@link #NATURAL}.
+     */
+    public double[] probabilities(int upcard, int[] counts) {
+        return outcomes(PackedHand.add(PackedHand.EMPTY, upcard), counts).clone();
+    }
+
+    /**
+     * Calculates the probability that the dealer busts.
+     *
+     * @param upcard the point value of the dealer's visible card (1 for an Ace).
+     * @param counts the cards left in the shoe by point value.
+     * @return the probability that the dealer busts.
+     */
+    public double bustProbability(int upcard, int[] counts) {
+        return outcomes(PackedHand.add(PackedHand.EMPTY, upcard), counts)[BUST];
+    }
+
+    /**
+     * Calculates the outcome probabilities for a dealer hand that may still have
+     * to draw. The returned array is shared with the cache and must not be
+     * changed.
+     *
+     * @param hand   the dealer's packed hand.
+     * @param counts the cards left in the shoe by point value.
+     * @return the outcome probabilities.
+     */
+    double[] outcomes(int hand, int[] counts) {
+        int total = 0;
+        for (int points = 1; points <= 10; points++) {
+            total += counts[points];
+        }
+        return outcomes(hand, counts, encode(counts), total);
+    }
+
+    /**
+     * Recursively enumerates the dealer's draws.
+     *
+     * @param hand   the dealer's packed hand.
+     * @param counts the cards left in the shoe by point value.
+     * @param key    the counts packed into a long.
+     * @param total  the number of cards left in the shoe.
+     * @return the outcome probabilities.
+     */
+    private double[] outcomes(int hand, int[] counts, long key, int total) {
+        Map<Long, double[]> states = cache.get(stateOf(hand));
+        double[] result = states.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        // The hidden card cannot complete a Blackjack if the dealer has peeked
+        int excluded = 0;
+        int draws = total;
+        if (peeks && PackedHand.cardCount(hand) == 1) {
+            int upcard = PackedHand.hardTotal(hand);
+            excluded = upcard == 1 ? 10 : upcard == 10 ? 1 : 0;
+            if (excluded != 0 && counts[excluded] < total) {
+                draws -= counts[excluded];
+            } else {
+                excluded = 0;
+            }
+        }
+
+        result = new double[OUTCOMES];
+        for (int points = 1; points <= 10; points++) {
+            int left = counts[points];
+            if (left == 0 || points == excluded) {
+                continue;
+            }
+            double chance = (double) left / draws;
+            int next = PackedHand.add(hand, points);
+            int score = PackedHand.score(next);
+
+            if (score > 21) {
+                result[BUST] += chance;
+            } else if (score == 21 && PackedHand.cardCount(next) == 2) {
+                result[NATURAL] += chance;
+            } else if (!engine.draws(next)) {
+                result[score - 17] += chance;
+            } else {
+                counts[points]--;
+                double[] after = outcomes(next, counts, key - unit(points), total - 1);
+                counts[points]++;
+                for (int i = 0; i < OUTCOMES; i++) {
+                    result[i] += chance * after[i];
+                }
+            }
+        }
+
+        if (cacheSize >= MAX_CACHE_SIZE) {
+            clearCache();
+        }
+        states.put(key, result);
+        cacheSize++;
+        return result;
+    }
+
+    /**
+     * Forgets every cached result.
+     */
+    public void clearCache() {
+        for (Map<Long, double[]> states : cache) {
+            states.clear();
+        }
+        cacheSize = 0;
+    }
+
+    /**
+     * @return the number of cached results.
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Packs a shoe composition into a long: six bits for each of the Ace to nine
+     * counts and eight bits for the ten point cards, enough for an eight deck
+     * shoe.
+     *
+     * @param counts the cards left in the shoe by point value.
+     * @return the packed composition.
+     */
+    static long encode(int[] counts) {
+        long key = 0;
+        for (int points = 1; points <= 10; points++) {
+            int limit = 1 << (points == 10 ? TEN_BITS : BITS_PER_RANK);
+            if (counts[points] < 0 || counts[points] >= limit) {
+                throw new IllegalArgumentException("Too many cards worth " + points + ": " + counts[points]);
+            }
+            key += counts[points] * unit(points);
+        }
+        return key;
+    }
+
+    /**
+     * @param points a point value (1-10).
+     * @return the amount one card of that value adds to a packed composition.
+     */
+    private static long unit(int points) {
+        return 1L << ((points - 1) * BITS_PER_RANK);
+    }
+
+    /**
+     * @param hand a packed hand.
+     * @return the hand's hard total, whether it holds an Ace and whether it
+     *         is a single card, as a number from 0 to 127.
+     */
+    private static int stateOf(int hand) {
+        return (PackedHand.hardTotal(hand) << 1 | (PackedHand.aceCount(hand) > 0 ? 1 : 0)) << 1
+                | (PackedHand.cardCount(hand) == 1 ? 1 : 0);
+    }
+}
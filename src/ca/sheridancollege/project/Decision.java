@@ -0,0 +1,22 @@
+package ca.sheridancollege.project;
+
+/**
+ * Represents the decisions a player can make on their turn in a game of
+ * Blackjack.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public enum Decision {
+
+    /** Draw another card. */
+    HIT,
+
+    /** Keep the current hand and end the turn. */
+    STAND,
+
+    /** Double the bet, draw exactly one more card and end the turn. */
+    DOUBLE,
+
+    /** Split a pair into two hands, each with its own bet. */
+    SPLIT;
+}
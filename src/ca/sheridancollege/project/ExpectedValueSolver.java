@@ -0,0 +1,301 @@
+package ca.sheridancollege.project;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Works out the expected value of standing, hitting, doubling and splitting
+ * for a hand, given the dealer's upcard and the cards the player has not seen.
+ *
+ * <p>
+ * Hitting is solved recursively, assuming the player keeps choosing the better
+ * of hitting and standing after every card. Every card drawn changes the
+ * composition of the shoe, so results are cached by an incrementally updated
+ * {@link CompositionHash} of the composition together with the hand state and
+ * upcard. The cache is bounded and evicts the least recently used entries, so
+ * a long running table keeps its memory use flat. Splitting is approximated as
+ * twice the value of one hand started from a single card of the pair, with no
+ * resplitting or doubling after the split; split Aces get one card each.
+ *
+ * <p>
+ * A solver is not thread safe; use {@link #forCurrentThread()} or one per
+ * thread.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class ExpectedValueSolver {
+
+    /** Number of cached values kept when no size is given. */
+    public static final int DEFAULT_CACHE_SIZE = 200_000;
+
+    // Each thread's solver for each set of house rules, so tables run by the
+    // same thread under the same rules share a cache
+    private static final ThreadLocal<ExpectedValueSolver[]> LOCAL = new ThreadLocal<ExpectedValueSolver[]>() {
+        @Override
+        protected ExpectedValueSolver[] initialValue() {
+            return new ExpectedValueSolver[HouseRules.COUNT];
+        }
+    };
+
+    // Calculates the dealer's final totals for each composition
+    private final DealerOutcomeCalculator dealer;
+
+    // Value of playing on (the better of hit and stand), by cache key
+    private final LruCache cache;
+
+    /**
+     * Constructs a new solver.
+     *
+     * @param cacheSize the largest number of values to keep cached.
+     */
+    public ExpectedValueSolver(int cacheSize) {
+        this(cacheSize, HouseRules.DEFAULT);
+    }
+
+    /**
+     * Constructs a new solver for a set of house rules.
+     *
+     * @param cacheSize the largest number of values to keep cached.
+     * @param rules     the house rules the dealer plays by.
+     */
+    public ExpectedValueSolver(int cacheSize, HouseRules rules) {
+        cache = new LruCache(cacheSize);
+        dealer = new DealerOutcomeCalculator(rules);
+    }
+
+    /**
+     * @return the current thread's solver for the default house rules.
+     */
+    public static ExpectedValueSolver forCurrentThread() {
+        return forCurrentThread(HouseRules.DEFAULT);
+    }
+
+    /**
+     * @param rules the house rules the dealer plays by.
+     * @return the current thread's solver for the rules.
+     */
+    public static ExpectedValueSolver forCurrentThread(HouseRules rules) {
+        ExpectedValueSolver[] solvers = LOCAL.get();
+        if (solvers[rules.index()] == null) {
+            solvers[rules.index()] = new ExpectedValueSolver(DEFAULT_CACHE_SIZE, rules);
+        }
+        return solvers[rules.index()];
+    }
+
+    /**
+     * Works out the expected value of each decision.
+     *
+     * @param hand       the player's whole hand, packed, including a hidden card.
+     * @param pairPoints the point value of the pair if the hand is two cards of
+     *                   the same value, or 0 if it cannot be split.
+     * @param upcard     the point value of the dealer's visible card.
+     * @param counts     the cards the player has not seen, by point value,
+     *                   indexed 1-10. The array is used as scratch space but
+     *                   is left unchanged.
+     * @return the expected value of each decision.
+     */
+    public ExpectedValues solve(int hand, int pairPoints, int upcard, int[] counts) {
+        long hash = CompositionHash.of(counts);
+        int total = 0;
+        for (int points = 1; points <= 10; points++) {
+            total += counts[points];
+        }
+
+        boolean natural = PackedHand.cardCount(hand) == 2 && PackedHand.score(hand) == 21;
+        double stand = stand(hand, upcard, counts, natural);
+        double hit = hit(hand, upcard, counts, hash, total);
+        double doubleDown = Double.NaN;
+        double split = Double.NaN;
+
+        if (PackedHand.cardCount(hand) == 2) {
+            doubleDown = 2 * doubleDown(hand, upcard, counts, total);
+            if (pairPoints > 0) {
+                split = 2 * splitHand(pairPoints, upcard, counts, hash, total);
+            }
+        }
+        return new ExpectedValues(stand, hit, doubleDown, split);
+    }
+
+    /**
+     * @param hand   the player's packed hand.
+     * @param upcard the point value of the dealer's visible card.
+     * @param counts the unseen cards by point value.
+     * @return the expected value of standing.
+     */
+    private double stand(int hand, int upcard, int[] counts) {
+        return stand(hand, upcard, counts, false);
+    }
+
+    /**
+     * @param hand    the player's packed hand.
+     * @param upcard  the point value of the dealer's visible card.
+     * @param counts  the unseen cards by point value.
+     * @param natural whether the hand is a Blackjack, which ties a dealer
+     *                Blackjack instead of losing to it.
+     * @return the expected value of standing.
+     */
+    private double stand(int hand, int upcard, int[] counts, boolean natural) {
+        int score = PackedHand.score(hand);
+        if (score > 21) {
+            return -1;
+        }
+
+        double[] outcomes = dealer.outcomes(PackedHand.add(PackedHand.EMPTY, upcard), counts);
+        if (natural) {
+            // A Blackjack beats every dealer hand but another Blackjack
+            return Outcome.BLACKJACK.getPayout() * (1 - outcomes[DealerOutcomeCalculator.NATURAL]);
+        }
+        double value = outcomes[DealerOutcomeCalculator.BUST] - outcomes[DealerOutcomeCalculator.NATURAL];
+        for (int dealerScore = 17; dealerScore <= 21; dealerScore++) {
+            double chance = outcomes[dealerScore - 17];
+            if (score > dealerScore) {
+                value += chance;
+            } else if (score < dealerScore) {
+                value -= chance;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @param hand   the player's packed hand.
+     * @param upcard the point value of the dealer's visible card.
+     * @param counts the unseen cards by point value.
+     * @param hash   the composition hash of counts.
+     * @param total  the number of unseen cards.
+     * @return the expected value of hitting once and then playing on.
+     */
+    private double hit(int hand, int upcard, int[] counts, long hash, int total) {
+        double value = 0;
+        for (int points = 1; points <= 10; points++) {
+            int left = counts[points];
+            if (left == 0) {
+                continue;
+            }
+            double chance = (double) left / total;
+            int next = PackedHand.add(hand, points);
+            if (PackedHand.score(next) > 21) {
+                value -= chance;
+                continue;
+            }
+            counts[points]--;
+            value += chance * playOn(next, upcard, counts, CompositionHash.remove(hash, points, left), total - 1);
+            counts[points]++;
+        }
+        return value;
+    }
+
+    /**
+     * @param hand   the player's packed hand.
+     * @param upcard the point value of the dealer's visible card.
+     * @param counts the unseen cards by point value.
+     * @param hash   the composition hash of counts.
+     * @param total  the number of unseen cards.
+     * @return the expected value of the better of hitting and standing.
+     */
+    private double playOn(int hand, int upcard, int[] counts, long hash, int total) {
+        long key = key(hash, hand, upcard);
+        Double cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        double value = stand(hand, upcard, counts);
+        if (PackedHand.score(hand) < 21) {
+            value = Math.max(value, hit(hand, upcard, counts, hash, total));
+        }
+        cache.put(key, value);
+        return value;
+    }
+
+    /**
+     * @param hand   the player's packed two card hand.
+     * @param upcard the point value of the dealer's visible card.
+     * @param counts the unseen cards by point value.
+     * @param total  the number of unseen cards.
+     * @return the expected value per unit of the original bet of drawing one
+     *         card and standing, before the bet is doubled.
+     */
+    private double doubleDown(int hand, int upcard, int[] counts, int total) {
+        double value = 0;
+        for (int points = 1; points <= 10; points++) {
+            int left = counts[points];
+            if (left == 0) {
+                continue;
+            }
+            counts[points]--;
+            value += (double) left / total * stand(PackedHand.add(hand, points), upcard, counts);
+            counts[points]++;
+        }
+        return value;
+    }
+
+    /**
+     * @param pairPoints the point value of each card of the pair.
+     * @param upcard     the point value of the dealer's visible card.
+     * @param counts     the unseen cards by point value.
+     * @param hash       the composition hash of counts.
+     * @param total      the number of unseen cards.
+     * @return the expected value of one of the two split hands.
+     */
+    private double splitHand(int pairPoints, int upcard, int[] counts, long hash, int total) {
+        int single = PackedHand.add(PackedHand.EMPTY, pairPoints);
+        double value = 0;
+        for (int points = 1; points <= 10; points++) {
+            int left = counts[points];
+            if (left == 0) {
+                continue;
+            }
+            int next = PackedHand.add(single, points);
+            counts[points]--;
+            double after = pairPoints == 1
+                    ? stand(next, upcard, counts)
+                    : playOn(next, upcard, counts, CompositionHash.remove(hash, points, left), total - 1);
+            counts[points]++;
+            value += (double) left / total * after;
+        }
+        return value;
+    }
+
+    /**
+     * Combines a composition hash with the hand state and upcard into a cache
+     * key.
+     *
+     * @param hash   the composition hash.
+     * @param hand   the player's packed hand.
+     * @param upcard the point value of the dealer's visible card.
+     * @return the cache key.
+     */
+    private static long key(long hash, int hand, int upcard) {
+        int state = PackedHand.hardTotal(hand) << 1 | (PackedHand.aceCount(hand) > 0 ? 1 : 0);
+        return hash ^ RandomSource.mix(state << 4 | upcard, 0);
+    }
+
+    /**
+     * @return the number of cached values.
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * A map that drops its least recently used entry once it is full.
+     */
+    private static class LruCache extends LinkedHashMap<Long, Double> {
+
+        private static final long serialVersionUID = 1L;
+
+        // Largest number of entries kept
+        private final int capacity;
+
+        LruCache(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Double> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ca.sheridancollege.project;
+
+/**
+ * Holds the expected value of each decision for a hand, in units won per unit
+ * bet. A decision that is not allowed for the hand has a value of
+ * {@link Double#NaN}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class ExpectedValues {
+
+    // Expected value of each decision, indexed by Decision.ordinal()
+    private final double[] values = new double[Decision.values().length];
+
+    /**
+     * Constructs a new set of expected values.
+     *
+     * @param stand      the expected value of standing.
+     * @param hit        the expected value of hitting and then playing on.
+     * @param doubleDown the expected value of doubling, or NaN if not allowed.
+     * @param split      the expected value of splitting, or NaN if not allowed.
+     */
+    public ExpectedValues(double stand, double hit, double doubleDown, double split) {
+        values[Decision.STAND.ordinal()] = stand;
+        values[Decision.HIT.ordinal()] = hit;
+        values[Decision.DOUBLE.ordinal()] = doubleDown;
+        values[Decision.SPLIT.ordinal()] = split;
+    }
+
+    /**
+     * @param decision a decision.
+     * @return the expected value of the decision, or NaN if it is not allowed.
+     */
+    public double get(Decision decision) {
+        return values[decision.ordinal()];
+    }
+
+    /**
+     * Finds the decision with the highest expected value.
+     *
+     * @return the best allowed decision.
+     */
+    public Decision getBest() {
+        Decision best = Decision.STAND;
+        for (Decision decision : Decision.values()) {
+            double value = get(decision);
+            if (!Double.isNaN(value) && value > get(best)) {
+                best = decision;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Provides a summary of the expected values, e.g.,
+     * "hit -0.216, stand -0.540, double -0.432 (best: hit)".
+     *
+     * @return String representation of the expected values.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Decision decision : Decision.values()) {
+            double value = get(decision);
+            if (!Double.isNaN(value)) {
+                if (text.length() > 0) {
+                    text.append(", ");
+                }
+                text.append(decision.name().toLowerCase()).append(String.format(" %+.3f", value));
+            }
+        }
+        return text.append(" (best: ").append(getBest().name().toLowerCase()).append(')').toString();
+    }
+}
@@ -0,0 +1,272 @@
+package ca.sheridancollege.project;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts what every {@link BlackjackGame} does and times the phases of its
+ * rounds, and publishes the results as JMX MBeans so they can be watched with
+ * JConsole or any JMX client while a simulation or the server is running.
+ *
+ * <p>
+ * Each thread records into its own {@link Recorder}, so recording never
+ * contends with other threads or takes a lock; reading an attribute adds up
+ * every thread's recorder. When a thread finishes, its recorder is added to a
+ * shared total and dropped, so replacing pool threads does not keep every old
+ * recorder. Every round is counted, but reading the clock costs
+ * about as much as a simulated round itself, so a game only times one round
+ * in {@link #SAMPLE_INTERVAL}, and the latency histograms are built from those
+ * sampled rounds. A game also keeps its counts to itself between sampled
+ * rounds and adds them to the recorder then, see
+ * {@link BlackjackGame#flushMetrics()}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+    /** Every how many rounds a game times one. */
+    public static final int SAMPLE_INTERVAL = 64;
+
+    /** Domain the MBeans are registered under. */
+    public static final String DOMAIN = "ca.sheridancollege.project";
+
+    /**
+     * Represents the phases of a round that are timed.
+     */
+    public enum Phase {
+
+        /** Dealing the initial cards. */
+        DEAL,
+
+        /** One player's turn, from the first decision to the last. */
+        PLAYER_TURN,
+
+        /** The dealer drawing to 17. */
+        DEALER_TURN,
+
+        /** Settling every hand and reporting the results. */
+        SETTLE;
+    }
+
+    // Counter indexes in a recorder
+    private static final int ROUNDS = 0;
+    private static final int HANDS = 1;
+    private static final int BUSTS = 2;
+    private static final int BLACKJACKS = 3;
+    private static final int RESHUFFLES = 4;
+    private static final int COUNTERS = 5;
+
+    // The recorder of every thread not yet found to have finished; also the
+    // lock the retired totals are guarded by
+    private static final List<Recorder> RECORDERS = new CopyOnWriteArrayList<>();
+
+    // Counters and latencies added up from the recorders of finished threads
+    private static final long[] RETIRED_COUNTERS = new long[COUNTERS];
+    private static final long[][] RETIRED_LATENCIES = new long[Phase.values().length][LatencyHistogram.BUCKETS];
+
+    // Each thread's recorder
+    private static final ThreadLocal<Recorder> LOCAL = new ThreadLocal<Recorder>() {
+        @Override
+        protected Recorder initialValue() {
+            Recorder recorder = new Recorder(Thread.currentThread());
+            synchronized (RECORDERS) {
+                retire();
+                RECORDERS.add(recorder);
+            }
+            return recorder;
+        }
+    };
+
+    // Set once the MBeans have been registered
+    private static boolean registered;
+
+    // Hands counted and the time when the hand rate was last read
+    private long lastHands;
+    private long lastRead = System.nanoTime();
+
+    /**
+     * @return the current thread's recorder.
+     */
+    public static Recorder recorder() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Registers the MBeans with the platform MBean server, unless they are
+     * already registered: one for the counters and one for each phase's
+     * latencies.
+     *
+     * @throws JMException if an MBean cannot be registered.
+     */
+    public static synchronized void register() throws JMException {
+        if (registered) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new GameMetrics(), new ObjectName(DOMAIN + ":type=GameMetrics"));
+        for (Phase phase : Phase.values()) {
+            server.registerMBean(new PhaseLatency(phase),
+                    new ObjectName(DOMAIN + ":type=PhaseLatency,name=" + phase));
+        }
+        registered = true;
+    }
+
+    /**
+     * Adds up every thread's histogram for a phase.
+     *
+     * @param phase the phase.
+     * @return the merged histogram, see {@link LatencyHistogram#addTo(long[])}.
+     */
+    public static long[] snapshot(Phase phase) {
+        synchronized (RECORDERS) {
+            retire();
+            long[] snapshot = RETIRED_LATENCIES[phase.ordinal()].clone();
+            for (Recorder recorder : RECORDERS) {
+                recorder.latencies[phase.ordinal()].addTo(snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * @param counter a counter's index.
+     * @return the counter added up over every thread.
+     */
+    private static long total(int counter) {
+        synchronized (RECORDERS) {
+            retire();
+            long total = RETIRED_COUNTERS[counter];
+            for (Recorder recorder : RECORDERS) {
+                total += recorder.counters.get(counter);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Adds the recorders of threads that have finished to the retired totals
+     * and drops them. A finished thread writes nothing more, so nothing it
+     * recorded is lost. Call while holding the lock on the recorder list.
+     */
+    private static void retire() {
+        for (Recorder recorder : RECORDERS) {
+            Thread owner = recorder.owner.get();
+            if (owner != null && owner.isAlive()) {
+                continue;
+            }
+            for (int counter = 0; counter < COUNTERS; counter++) {
+                RETIRED_COUNTERS[counter] += recorder.counters.get(counter);
+            }
+            for (int phase = 0; phase < RETIRED_LATENCIES.length; phase++) {
+                recorder.latencies[phase].addTo(RETIRED_LATENCIES[phase]);
+            }
+            RECORDERS.remove(recorder);
+        }
+    }
+
+    @Override
+    public long getRounds() {
+        return total(ROUNDS);
+    }
+
+    @Override
+    public long getHands() {
+        return total(HANDS);
+    }
+
+    @Override
+    public long getBusts() {
+        return total(BUSTS);
+    }
+
+    @Override
+    public long getBlackjacks() {
+        return total(BLACKJACKS);
+    }
+
+    @Override
+    public long getReshuffles() {
+        return total(RESHUFFLES);
+    }
+
+    @Override
+    public synchronized double getHandsPerSecond() {
+        long hands = total(HANDS);
+        long now = System.nanoTime();
+        double rate = now == lastRead ? 0 : (hands - lastHands) * 1e9 / (now - lastRead);
+        lastHands = hands;
+        lastRead = now;
+        return rate;
+    }
+
+    /**
+     * Records what one thread's games do. Only the owning thread writes to a
+     * recorder; each value is written with an ordered store so other threads
+     * can read it at any time.
+     */
+    public static class Recorder {
+
+        // Latencies of each phase, by ordinal
+        private final LatencyHistogram[] latencies = new LatencyHistogram[Phase.values().length];
+
+        // Counters, by index
+        private final AtomicLongArray counters = new AtomicLongArray(COUNTERS);
+
+        // The thread that writes to the recorder, held weakly so a finished
+        // thread can be collected
+        private final WeakReference<Thread> owner;
+
+        private Recorder(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+            }
+        }
+
+        /**
+         * Records how long a phase of a timed round took.
+         *
+         * @param phase the phase.
+         * @param nanos how long it took, in nanoseconds.
+         */
+        public void record(Phase phase, long nanos) {
+            latencies[phase.ordinal()].record(nanos);
+        }
+
+        /**
+         * Counts settled rounds.
+         *
+         * @param rounds     the number of rounds.
+         * @param hands      the number of players' hands in the rounds.
+         * @param busts      the number of hands that busted.
+         * @param blackjacks the number of hands that won with a Blackjack.
+         */
+        public void roundsSettled(int rounds, int hands, int busts, int blackjacks) {
+            increment(ROUNDS, rounds);
+            increment(HANDS, hands);
+            increment(BUSTS, busts);
+            increment(BLACKJACKS, blackjacks);
+        }
+
+        /**
+         * Counts a reshuffle of a shoe.
+         */
+        public void reshuffled() {
+            increment(RESHUFFLES, 1);
+        }
+
+        /**
+         * @param counter a counter's index.
+         * @param amount  the amount to add.
+         */
+        private void increment(int counter, long amount) {
+            counters.lazySet(counter, counters.get(counter) + amount);
+        }
+    }
+}
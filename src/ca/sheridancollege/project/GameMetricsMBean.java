@@ -0,0 +1,40 @@
+package ca.sheridancollege.project;
+
+/**
+ * The JMX view of {@link GameMetrics}: counts of what every game in the
+ * process has done.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public interface GameMetricsMBean {
+
+    /**
+     * @return the number of rounds settled.
+     */
+    long getRounds();
+
+    /**
+     * @return the number of players' hands settled.
+     */
+    long getHands();
+
+    /**
+     * @return the number of players' hands that busted.
+     */
+    long getBusts();
+
+    /**
+     * @return the number of players' hands that won with a Blackjack.
+     */
+    long getBlackjacks();
+
+    /**
+     * @return the number of times a shoe was reshuffled.
+     */
+    long getReshuffles();
+
+    /**
+     * @return the hands settled per second since this attribute was last read.
+     */
+    double getHandsPerSecond();
+}
@@ -0,0 +1,441 @@
+package ca.sheridancollege.project;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A TCP server that hosts many Blackjack tables at once. All sockets are
+ * handled by one thread using a java.nio selector, so idle or slow clients
+ * cost a buffer rather than a thread. Game logic runs on a small pool of table
+ * threads, separately from socket I/O; see {@link ServerTable}.
+ *
+ * <p>
+ * Clients send one command per line:
+ * <ul>
+ * <li>join &lt;name&gt; [rules] - take a seat at a table with a free seat,
+ * played under the given {@link HouseRules} (such as h17-peek) or the
+ * server's default rules</li>
+ * <li>bet &lt;amount&gt; - bet on the next round, which starts once everyone
+ * seated has bet</li>
+ * <li>hit, stand - play your turn</li>
+ * <li>double - double your bet on your first two cards and take one more
+ * card</li>
+ * <li>hint - get the expected value of each decision on your turn</li>
+ * <li>quit - leave the table and disconnect</li>
+ * </ul>
+ *
+ * <p>
+ * Every player name has a balance in the server's {@link Ledger}, opened with
+ * {@link Ledger#STARTING_BALANCE} chips the first time the name joins. Bets are
+ * taken out of the balance when they are placed and paid back when the round
+ * is settled, with a Blackjack paying 3:2.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class GameServer implements Runnable {
+
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 4021;
+
+    // Selects ready sockets
+    private final Selector selector;
+
+    // Accepts new clients
+    private final ServerSocketChannel serverChannel;
+
+    // Runs the tables' game logic
+    private final ExecutorService tableThreads;
+
+    // Every table opened so far; only used by the selector thread
+    private final List<ServerTable> tables = new ArrayList<>();
+
+    // Connections with output waiting to be written
+    private final Queue<ClientConnection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    // Cleared to stop the server
+    private volatile boolean running = true;
+
+    // The log every round is recorded to, or null
+    private volatile HandHistoryLog history;
+
+    // Every player's balance, shared by all tables
+    private final Ledger ledger = new Ledger();
+
+    // The rules a table is opened with when the player joining names none
+    private volatile HouseRules rules = HouseRules.DEFAULT;
+
+    // Where errors that stop the server are reported
+    private volatile OutputSink output = TerminalSink.STDOUT;
+
+    /**
+     * Opens a server on the given port of every local address.
+     *
+     * @param port the port to listen on, or 0 for any free port.
+     * @throws IOException if the port cannot be opened.
+     */
+    public GameServer(int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        tableThreads = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return the port the server is listening on.
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return the log every round is recorded to, or null.
+     */
+    public HandHistoryLog getHistory() {
+        return history;
+    }
+
+    /**
+     * Records every round played at tables opened from now on.
+     *
+     * @param history the log, or null to record nothing.
+     */
+    public void setHistory(HandHistoryLog history) {
+        this.history = history;
+    }
+
+    /**
+     * @return the house rules used when a joining player names none.
+     */
+    public HouseRules getRules() {
+        return rules;
+    }
+
+    /**
+     * @param rules the house rules used when a joining player names none.
+     */
+    public void setRules(HouseRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @return where errors that stop the server are reported.
+     */
+    public OutputSink getOutput() {
+        return output;
+    }
+
+    /**
+     * @param output where errors that stop the server are reported.
+     */
+    public void setOutput(OutputSink output) {
+        this.output = output;
+    }
+
+    /**
+     * @return the ledger that holds every player's balance.
+     */
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    /**
+     * @return the number of tables opened so far.
+     */
+    public int getTableCount() {
+        return tables.size();
+    }
+
+    /**
+     * Runs the selector loop until {@link #stop()} is called.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                registerWrites();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        close(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            report("Server stopped: " + e.getMessage());
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Stops the selector loop and closes every socket.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Asks the selector thread to write a connection's queued output.
+     *
+     * @param connection the connection with output waiting.
+     */
+    void requestWrite(ClientConnection connection) {
+        pendingWrites.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Runs a table's game logic on the table threads.
+     *
+     * @param task the work to run.
+     */
+    void execute(Runnable task) {
+        tableThreads.execute(task);
+    }
+
+    /**
+     * Accepts a new client.
+     *
+     * @throws IOException if the client cannot be registered.
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new ClientConnection(channel, this));
+    }
+
+    /**
+     * Reads from a client and handles every complete line.
+     *
+     * @param key the client's key.
+     * @throws IOException if the socket fails.
+     */
+    private void read(SelectionKey key) throws IOException {
+        ClientConnection connection = (ClientConnection) key.attachment();
+        ByteBuffer input = connection.getInput();
+        if (connection.getChannel().read(input) < 0) {
+            close(key);
+            return;
+        }
+
+        input.flip();
+        int start = 0;
+        for (int i = 0; i < input.limit(); i++) {
+            if (input.get(i) == '\n') {
+                String line = new String(input.array(), start, i - start, StandardCharsets.US_ASCII).trim();
+                start = i + 1;
+                if (!handle(connection, line)) {
+                    close(key);
+                    return;
+                }
+            }
+        }
+        input.position(start);
+        input.compact();
+
+        if (!input.hasRemaining()) {
+            connection.send("ERR line too long");
+            connection.closeAfterFlush();
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Writes a client's queued output, closing the connection afterwards if it
+     * was asked to.
+     *
+     * @param key the client's key.
+     * @throws IOException if the socket fails.
+     */
+    private void write(SelectionKey key) throws IOException {
+        ClientConnection connection = (ClientConnection) key.attachment();
+        if (!connection.flush()) {
+            return;
+        }
+        if (connection.isClosing()) {
+            close(key);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Turns on write interest for every connection with queued output.
+     */
+    private void registerWrites() {
+        ClientConnection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            SelectionKey key = connection.getChannel().keyFor(selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(connection.isClosing() ? SelectionKey.OP_WRITE
+                        : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    /**
+     * Handles one line from a client. Joining is handled here; everything else
+     * is passed to the client's table.
+     *
+     * @param connection the client.
+     * @param line       the line, without the newline.
+     * @return false if the client should be disconnected.
+     */
+    private boolean handle(ClientConnection connection, String line) {
+        if (line.isEmpty()) {
+            return true;
+        }
+        int space = line.indexOf(' ');
+        String command = (space < 0 ? line : line.substring(0, space)).toLowerCase();
+        String argument = space < 0 ? "" : line.substring(space + 1).trim();
+
+        if ("quit".equals(command)) {
+            return false;
+        }
+        if ("join".equals(command)) {
+            join(connection, argument);
+            return true;
+        }
+
+        ServerTable table = connection.getTable();
+        if (table == null) {
+            connection.send("ERR join a table first");
+        } else {
+            table.submit(connection, command, argument);
+        }
+        return true;
+    }
+
+    /**
+     * Seats a client at the first table with a free seat under the rules the
+     * client asked for, opening a new table if every such table is full.
+     *
+     * @param connection the client.
+     * @param argument   the name the client wants to play as, optionally
+     *                   followed by the house rules.
+     */
+    private void join(ClientConnection connection, String argument) {
+        if (connection.getTable() != null) {
+            connection.send("ERR already seated");
+            return;
+        }
+        String[] words = argument.split(" +");
+        String name = words[0];
+        if (name.isEmpty() || words.length > 2) {
+            connection.send("ERR name must be one word");
+            return;
+        }
+        HouseRules tableRules = rules;
+        if (words.length == 2) {
+            try {
+                tableRules = HouseRules.parse(words[1]);
+            } catch (IllegalArgumentException e) {
+                connection.send("ERR unknown house rules " + words[1]);
+                return;
+            }
+        }
+
+        ServerTable table = null;
+        for (ServerTable open : tables) {
+            if (open.getRules() == tableRules && open.reserveSeat()) {
+                table = open;
+                break;
+            }
+        }
+        if (table == null) {
+            table = new ServerTable(tables.size() + 1, this, tableRules);
+            table.reserveSeat();
+            tables.add(table);
+        }
+
+        connection.setName(name);
+        connection.setTable(table);
+        table.submit(connection, "join", name);
+    }
+
+    /**
+     * Closes a client's socket and gives up its seat.
+     *
+     * @param key the client's key.
+     */
+    private void close(SelectionKey key) {
+        key.cancel();
+        Object attachment = key.attachment();
+        if (attachment instanceof ClientConnection) {
+            ClientConnection connection = (ClientConnection) attachment;
+            if (connection.getTable() != null) {
+                connection.getTable().submit(connection, "leave", "");
+            }
+            try {
+                connection.getChannel().close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Closes every socket and stops the table threads.
+     */
+    private void shutdown() {
+        for (SelectionKey key : selector.keys()) {
+            close(key);
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            report("Could not close the server socket: " + e.getMessage());
+        }
+        tableThreads.shutdown();
+    }
+
+    /**
+     * Reports an error to the server's output.
+     *
+     * @param message the error.
+     */
+    private void report(String message) {
+        OutputSink sink = output;
+        sink.println(message);
+        sink.flush();
+    }
+}
@@ -6,7 +6,6 @@
 package ca.sheridancollege.project;
 
 import java.util.ArrayList;
-import java.util.Collections;
 
 /**
  * A concrete class that represents any grouping of cards for a Game. HINT, you might want to subclass this more than
@@ -36,8 +35,41 @@ public class GroupOfCards {
         return cards;
     }
 
+    /**
+     * Shuffles the group of cards using the current thread's random source.
+     */
     public void shuffle() {
-        Collections.shuffle(cards);
+        shuffle(RandomSource.forCurrentThread());
+    }
+
+    /**
+     * Shuffles the group of cards in place using the given random source, so
+     * that runs can be seeded and each thread can use its own generator. The
+     * cards are swapped exactly as {@link #shuffle(int[], RandomSource)}
+     * swaps indexes, without allocating.
+     *
+     * @param random the random source to shuffle with.
+     */
+    public void shuffle(RandomSource random) {
+        for (int i = cards.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            cards.set(j, cards.set(i, cards.get(j)));
+        }
+    }
+
+    /**
+     * Shuffles an array of card indexes in place (Fisher-Yates).
+     *
+     * @param indexes the card indexes to shuffle.
+     * @param random  the random source to shuffle with.
+     */
+    protected static void shuffle(int[] indexes, RandomSource random) {
+        for (int i = indexes.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
     }
 
     /**
@@ -0,0 +1,422 @@
+package ca.sheridancollege.project;
+
+/**
+ * Plays many independent simulation blocks in lockstep, for the
+ * {@link Simulator}'s batch mode. Each block is a lane with its own shoe and
+ * random source. The state of every lane's hands is kept in parallel primitive
+ * arrays rather than in player and dealer objects. Each round is played phase
+ * by phase across all lanes (deal, players' turns, dealer's turns, settle),
+ * so every phase is a short loop over arrays with table lookups for the
+ * player's decisions, the dealer's draws and the scores.
+ *
+ * <p>
+ * A lane deals exactly the cards its block would deal through
+ * {@link BlackjackGame}, and follows the same rules: the
+ * {@link PackedHand} scores, the {@link DealerEngine} draw table, peeking for a
+ * dealer Blackjack, and {@link BlackjackGame#settle(BlackjackPlayer,
+ * BlackjackPlayer)}. Its results are therefore the same, hand for hand. The
+ * player's strategy is compiled into a table with {@link #compile}, which only
+ * works for a strategy that decides from the hand's score, whether it is soft,
+ * whether it is the first two cards or a pair, and the dealer's upcard.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class HandBatch {
+
+    // Kinds of hand a compiled strategy tells apart
+    private static final int MORE_CARDS = 0;
+    private static final int TWO_CARDS = 1;
+    private static final int PAIR = 2;
+    private static final int KINDS = 3;
+
+    // Columns of a compiled strategy: upcards 1-10
+    private static final int UPCARDS = 11;
+
+    // Decisions as stored in a compiled strategy
+    private static final byte STAND = (byte) Decision.STAND.ordinal();
+    private static final byte DOUBLE = (byte) Decision.DOUBLE.ordinal();
+
+    // The Hi-Lo tag of each card value (1-13)
+    private static final int[] HI_LO = new int[14];
+
+    // The card values of the largest shoe before shuffling, in the order
+    // BlackjackDeck builds it: deck by deck, suit by suit, Ace to King
+    private static final byte[] UNSHUFFLED = new byte[52 * BlackjackDeck.MAX_DECKS];
+
+    static {
+        for (int value = 1; value <= 13; value++) {
+            HI_LO[value] = CountSystem.HI_LO.tag(PackedHand.points(value));
+        }
+        for (int i = 0; i < UNSHUFFLED.length; i++) {
+            UNSHUFFLED[i] = (byte) (i % 13 + 1);
+        }
+    }
+
+    // The player's decisions, indexed by (kind * STATES + state) * UPCARDS + upcard
+    private final byte[] decisions;
+
+    // Plays the dealer's hands
+    private final DealerEngine engine;
+
+    // Whether a dealer Blackjack ends the round before the players play
+    private final boolean peeks;
+
+    // Number of lanes, cards in each shoe, and position of the cut card
+    private final int lanes;
+    private final int size;
+    private final int cutCard;
+
+    // Every lane's shoe, as card values (1-13) in dealing order, one after another
+    private final byte[] cards;
+
+    // Each lane's position in its shoe and Hi-Lo running count
+    private final int[] cursor;
+    private final int[] running;
+
+    // Each lane's random source, used to shuffle its shoe
+    private final RandomSource[] random;
+
+    // Each lane's corpus slice new shoes are read from instead, or null
+    private ShoeCorpus.Slice[] shoes;
+
+    // Each lane's results
+    private final SimulationResult[] results;
+
+    // The current round of each lane: packed hands, kind of player hand,
+    // dealer's upcard points, units bet and true count when dealt
+    private final int[] player;
+    private final int[] dealer;
+    private final int[] kind;
+    private final int[] upcard;
+    private final int[] units;
+    private final double[] trueCount;
+
+    // Lanes whose player is still to act
+    private final int[] acting;
+
+    // Counts for the game metrics
+    private int rounds;
+    private int busts;
+    private int blackjacks;
+
+    /**
+     * Constructs a new batch with every shoe waiting to be shuffled.
+     *
+     * @param decisions   the player's strategy, see {@link #compile}.
+     * @param rules       the house rules.
+     * @param decks       the number of decks in each shoe (1-8).
+     * @param penetration the share of each shoe dealt before it is reshuffled.
+     * @param random      each lane's random source.
+     */
+    public HandBatch(byte[] decisions, HouseRules rules, int decks, double penetration, RandomSource[] random) {
+        if (decks < BlackjackDeck.MIN_DECKS || decks > BlackjackDeck.MAX_DECKS) {
+            throw new IllegalArgumentException("A shoe must have between " + BlackjackDeck.MIN_DECKS + " and "
+                    + BlackjackDeck.MAX_DECKS + " decks: " + decks);
+        }
+        if (!(penetration > 0 && penetration <= 1)) {
+            throw new IllegalArgumentException("Penetration must be greater than 0 and at most 1: " + penetration);
+        }
+        this.decisions = decisions;
+        this.engine = DealerEngine.of(rules);
+        this.peeks = rules.peeks();
+        this.random = random;
+        lanes = random.length;
+        size = 52 * decks;
+        cutCard = Math.max(1, (int) (size * penetration));
+
+        cards = new byte[lanes * size];
+        cursor = new int[lanes];
+        running = new int[lanes];
+        results = new SimulationResult[lanes];
+        player = new int[lanes];
+        dealer = new int[lanes];
+        kind = new int[lanes];
+        upcard = new int[lanes];
+        units = new int[lanes];
+        trueCount = new double[lanes];
+        acting = new int[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            // Like a new BlackjackDeck, the shoe is shuffled before the first round
+            cursor[lane] = size;
+            results[lane] = new SimulationResult();
+        }
+    }
+
+    /**
+     * Compiles a strategy into the table a batch plays from, by asking it about
+     * every hand of two and three cards against every upcard. The decisions
+     * are the ones {@link BlackjackPlayer#chooseDecision(int)} would make, so
+     * splits become hits and doubles after the first two cards become hits.
+     *
+     * @param strategy the strategy.
+     * @return the compiled strategy.
+     * @throws IllegalArgumentException if the strategy decides differently for
+     *                                  hands a table cannot tell apart.
+     */
+    public static byte[] compile(PlayerStrategy strategy) {
+        byte[] table = new byte[KINDS * PackedHand.STATES * UPCARDS];
+        boolean[] asked = new boolean[table.length];
+        BlackjackPlayer probe = new BlackjackPlayer("Probe", strategy);
+        for (int first = 1; first <= 10; first++) {
+            for (int second = 1; second <= 10; second++) {
+                ask(probe, table, asked, first, second, 0);
+                for (int third = 1; third <= 10; third++) {
+                    ask(probe, table, asked, first, second, third);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Asks a strategy what to do with one hand against every upcard, and
+     * fills in the table.
+     *
+     * @param probe  a player with the strategy.
+     * @param table  the table being compiled.
+     * @param asked  whether each cell has been filled in.
+     * @param first  the points of the first card.
+     * @param second the points of the second card.
+     * @param third  the points of the third card, or 0 for a two card hand.
+     */
+    private static void ask(BlackjackPlayer probe, byte[] table, boolean[] asked, int first, int second,
+            int third) {
+        probe.resetHand();
+        probe.addCardToHand(BlackjackCard.of(Suit.HEARTS, first));
+        probe.addCardToHand(BlackjackCard.of(Suit.HEARTS, second));
+        if (third != 0) {
+            probe.addCardToHand(BlackjackCard.of(Suit.HEARTS, third));
+        }
+        probe.revealHiddenCard();
+        if (probe.isBusted()) {
+            return;
+        }
+
+        int handKind = third != 0 ? MORE_CARDS : first == second ? PAIR : TWO_CARDS;
+        int row = (handKind * PackedHand.STATES + PackedHand.state(probe.getPackedHand())) * UPCARDS;
+        for (int up = 1; up <= 10; up++) {
+            byte decision = (byte) probe.chooseDecision(up).ordinal();
+            if (asked[row + up] && table[row + up] != decision) {
+                throw new IllegalArgumentException("The strategy decides on more than a hand's score, softness "
+                        + "and first two cards, so it cannot be played in a batch");
+            }
+            table[row + up] = decision;
+            asked[row + up] = true;
+        }
+    }
+
+    /**
+     * Deals every lane's new shoes from a {@link ShoeCorpus} instead of
+     * shuffling, as {@link BlackjackDeck#setShoes(ShoeCorpus.Slice)} does.
+     *
+     * @param shoes each lane's corpus slice, or null to shuffle.
+     */
+    public void setShoes(ShoeCorpus.Slice[] shoes) {
+        this.shoes = shoes;
+    }
+
+    /**
+     * Plays every lane's hands.
+     *
+     * @param hands the number of hands to play in each lane. Only the last lane
+     *              may play fewer hands than the others.
+     * @return each lane's results.
+     */
+    public SimulationResult[] play(long[] hands) {
+        long most = 0;
+        for (long count : hands) {
+            most = Math.max(most, count);
+        }
+
+        int live = lanes;
+        for (long round = 0; round < most; round++) {
+            while (live > 0 && hands[live - 1] <= round) {
+                live--;
+            }
+            deal(live);
+            playPlayers(live);
+            playDealers(live);
+            settle(live);
+        }
+
+        GameMetrics.recorder().roundsSettled(rounds, rounds, busts, blackjacks);
+        rounds = 0;
+        busts = 0;
+        blackjacks = 0;
+        return results;
+    }
+
+    /**
+     * Reshuffles the shoes that have reached the cut card, then deals two cards
+     * to each lane's player and two to its dealer.
+     *
+     * @param live the number of lanes playing this round.
+     */
+    private void deal(int live) {
+        for (int lane = 0; lane < live; lane++) {
+            if (cursor[lane] >= cutCard) {
+                shuffle(lane);
+            }
+            // The cut card always leaves cards in the shoe, so this never divides by zero
+            trueCount[lane] = running[lane] * 52.0 / (size - cursor[lane]);
+
+            int hidden = draw(lane);
+            int second = draw(lane);
+            player[lane] = PackedHand.add(PackedHand.add(PackedHand.EMPTY, hidden), second);
+            kind[lane] = PackedHand.points(hidden) == PackedHand.points(second) ? PAIR : TWO_CARDS;
+            units[lane] = 1;
+
+            int hole = draw(lane);
+            int up = draw(lane);
+            dealer[lane] = PackedHand.add(PackedHand.add(PackedHand.EMPTY, hole), up);
+            upcard[lane] = PackedHand.points(up);
+        }
+    }
+
+    /**
+     * Plays the players' turns, one decision for every lane still acting at a
+     * time, until every player has stood, doubled or busted.
+     *
+     * @param live the number of lanes playing this round.
+     */
+    private void playPlayers(int live) {
+        int count = 0;
+        for (int lane = 0; lane < live; lane++) {
+            if (!peeks || !isNatural(dealer[lane])) {
+                acting[count++] = lane;
+            }
+        }
+
+        while (count > 0) {
+            int stillActing = 0;
+            for (int i = 0; i < count; i++) {
+                int lane = acting[i];
+                int hand = player[lane];
+                byte decision = decisions[(kind[lane] * PackedHand.STATES + PackedHand.state(hand)) * UPCARDS
+                        + upcard[lane]];
+                if (decision == STAND) {
+                    continue;
+                }
+                hand = PackedHand.add(hand, draw(lane));
+                player[lane] = hand;
+                kind[lane] = MORE_CARDS;
+                if (decision == DOUBLE) {
+                    units[lane] = 2;
+                } else if (PackedHand.score(hand) <= 21) {
+                    acting[stillActing++] = lane;
+                }
+            }
+            count = stillActing;
+        }
+    }
+
+    /**
+     * Plays every dealer's turn by the rules' draw table. The dealer plays even
+     * when the player has busted, just as at a table.
+     *
+     * @param live the number of lanes playing this round.
+     */
+    private void playDealers(int live) {
+        for (int lane = 0; lane < live; lane++) {
+            int hand = dealer[lane];
+            while (engine.draws(hand)) {
+                hand = PackedHand.add(hand, draw(lane));
+            }
+            dealer[lane] = hand;
+        }
+    }
+
+    /**
+     * Settles every lane's hand and records it in the lane's results.
+     *
+     * @param live the number of lanes playing this round.
+     */
+    private void settle(int live) {
+        for (int lane = 0; lane < live; lane++) {
+            int hand = player[lane];
+            int dealerHand = dealer[lane];
+            int score = PackedHand.score(hand);
+            int dealerScore = PackedHand.score(dealerHand);
+            boolean dealerNatural = isNatural(dealerHand);
+
+            Outcome outcome;
+            if (score > 21) {
+                outcome = Outcome.LOSS;
+                busts++;
+            } else if (isNatural(hand)) {
+                outcome = dealerNatural ? Outcome.PUSH : Outcome.BLACKJACK;
+            } else if (dealerNatural) {
+                outcome = Outcome.LOSS;
+            } else if (dealerScore > 21 || score > dealerScore) {
+                outcome = Outcome.WIN;
+            } else if (dealerScore > score) {
+                outcome = Outcome.LOSS;
+            } else {
+                outcome = Outcome.PUSH;
+            }
+            if (outcome == Outcome.BLACKJACK) {
+                blackjacks++;
+            }
+            results[lane].record(outcome, units[lane], upcard[lane], dealerScore > 21, trueCount[lane]);
+        }
+        rounds += live;
+    }
+
+    /**
+     * Draws the next card from a lane's shoe, reshuffling it if it has run out.
+     *
+     * @param lane the lane.
+     * @return the card's value (1-13).
+     */
+    private int draw(int lane) {
+        int position = cursor[lane];
+        if (position == size) {
+            shuffle(lane);
+            position = 0;
+        }
+        int value = cards[lane * size + position];
+        cursor[lane] = position + 1;
+        running[lane] += HI_LO[value];
+        return value;
+    }
+
+    /**
+     * Shuffles a lane's shoe exactly as {@link BlackjackDeck#shuffle(long)}
+     * would, with a seed from the lane's random source, or reads the lane's
+     * next shoe from the corpus.
+     *
+     * @param lane the lane.
+     */
+    private void shuffle(int lane) {
+        int base = lane * size;
+        if (shoes != null) {
+            shoes[lane].next(cards, base);
+            for (int i = base; i < base + size; i++) {
+                cards[i] = (byte) (cards[i] % 13 + 1);
+            }
+        } else {
+            XoroshiroRandomSource shuffler = new XoroshiroRandomSource(random[lane].nextLong());
+
+            // Makes the same swaps as GroupOfCards#shuffle(int[], RandomSource)
+            // on the card values rather than on their indexes
+            System.arraycopy(UNSHUFFLED, 0, cards, base, size);
+            for (int i = size - 1; i > 0; i--) {
+                int j = base + shuffler.nextInt(i + 1);
+                byte swap = cards[base + i];
+                cards[base + i] = cards[j];
+                cards[j] = swap;
+            }
+        }
+        cursor[lane] = 0;
+        running[lane] = 0;
+        GameMetrics.recorder().reshuffled();
+    }
+
+    /**
+     * @param hand a packed hand.
+     * @return true if the hand is a Blackjack: 21 with its first two cards.
+     */
+    private static boolean isNatural(int hand) {
+        return PackedHand.cardCount(hand) == 2 && PackedHand.score(hand) == 21;
+    }
+}
@@ -0,0 +1,275 @@
+package ca.sheridancollege.project;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An append-only log of {@link HandRecord}s, stored in a directory as a series
+ * of fixed-size segment files that are memory-mapped. Appending copies the
+ * record's bytes into the mapped segment, so there is no system call or text
+ * formatting per record; the operating system writes the pages back in the
+ * background. When a segment is full the log rolls over to the next one.
+ * Each segment starts with a header slot recording how many records it
+ * holds, so a log is never reopened with a different segment size.
+ *
+ * <p>
+ * Any number of threads can append at once: each record's slot is claimed
+ * with a single atomic increment, so simulator threads and tables never wait
+ * for each other. A crash can therefore leave an empty slot below records
+ * that were finished; reopening carries on after the last record, and
+ * {@link HandHistoryReader} skips the gap.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class HandHistoryLog implements Closeable {
+
+    /** Number of records in a segment when none is given (128 MiB per segment). */
+    public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+    /** Extension of segment files. */
+    static final String EXTENSION = ".hands";
+
+    /** Bytes before a segment's first record; one slot, so records stay aligned. */
+    static final int HEADER_SIZE = HandRecord.SIZE;
+
+    // First int of every segment header ("HAND")
+    private static final int MAGIC = 0x48414E44;
+
+    // The directory the segments are kept in
+    private final File directory;
+
+    // Number of records in each segment
+    private final int recordsPerSegment;
+
+    // Index the next record is written at, counting from the first segment
+    private final AtomicLong next;
+
+    // Every segment mapped so far, by number; grown under the lock
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    // The files the segments are mapped from
+    private final List<RandomAccessFile> files = new ArrayList<>();
+
+    /**
+     * Opens a log with the default segment size.
+     *
+     * @param directory the directory the segments are kept in.
+     * @throws IOException if the directory cannot be used, or holds a log with
+     *                     a different segment size.
+     */
+    public HandHistoryLog(File directory) throws IOException {
+        this(directory, DEFAULT_RECORDS_PER_SEGMENT);
+    }
+
+    /**
+     * Opens a log, appending after any records already in the directory.
+     *
+     * @param directory         the directory the segments are kept in.
+     * @param recordsPerSegment the number of records in each segment.
+     * @throws IOException if the directory cannot be used, or holds a log with
+     *                     a different segment size.
+     */
+    public HandHistoryLog(File directory, int recordsPerSegment) throws IOException {
+        if (recordsPerSegment <= 0
+                || HEADER_SIZE + (long) recordsPerSegment * HandRecord.SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Records per segment must fit in a mapped buffer: "
+                    + recordsPerSegment);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        next = new AtomicLong(findEnd());
+    }
+
+    /**
+     * Appends a record. Safe to call from any thread.
+     *
+     * @param record the record.
+     * @throws IOException if a new segment cannot be created.
+     */
+    public void append(HandRecord record) throws IOException {
+        long index = next.getAndIncrement();
+        int segment = (int) (index / recordsPerSegment);
+        int offset = HEADER_SIZE + (int) (index % recordsPerSegment) * HandRecord.SIZE;
+        record.writeTo(segment(segment), offset);
+    }
+
+    /**
+     * @return the number of records in the log.
+     */
+    public long size() {
+        return next.get();
+    }
+
+    /**
+     * @return the directory the segments are kept in.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Asks the operating system to write every mapped page to disk. Appending
+     * never waits for the disk; call this when the records must survive a crash.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Writes every record to disk and closes the segment files.
+     *
+     * @throws IOException if a file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        for (RandomAccessFile file : files) {
+            file.close();
+        }
+        files.clear();
+    }
+
+    /**
+     * Gets a segment, mapping it the first time it is used.
+     *
+     * @param number the segment's number.
+     * @return the mapped segment.
+     * @throws IOException if the segment cannot be created.
+     */
+    private MappedByteBuffer segment(int number) throws IOException {
+        MappedByteBuffer[] mapped = segments;
+        if (number < mapped.length && mapped[number] != null) {
+            return mapped[number];
+        }
+        return map(number);
+    }
+
+    /**
+     * Maps a segment, creating its file and header if needed.
+     *
+     * @param number the segment's number.
+     * @return the mapped segment.
+     * @throws IOException if the segment cannot be created, or was written with
+     *                     a different segment size.
+     */
+    private synchronized MappedByteBuffer map(int number) throws IOException {
+        MappedByteBuffer[] mapped = segments;
+        if (number < mapped.length && mapped[number] != null) {
+            return mapped[number];
+        }
+        if (number >= mapped.length) {
+            MappedByteBuffer[] grown = new MappedByteBuffer[Math.max(number + 1, mapped.length * 2)];
+            System.arraycopy(mapped, 0, grown, 0, mapped.length);
+            mapped = grown;
+        }
+
+        File name = segmentFile(directory, number);
+        RandomAccessFile file = new RandomAccessFile(name, "rw");
+        files.add(file);
+        boolean created = file.length() == 0;
+        long size = HEADER_SIZE + (long) recordsPerSegment * HandRecord.SIZE;
+        MappedByteBuffer segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (created) {
+            segment.putInt(0, MAGIC);
+            segment.putInt(4, recordsPerSegment);
+        } else {
+            checkSize(name, segment);
+        }
+        mapped[number] = segment;
+        segments = mapped;
+        return segment;
+    }
+
+    /**
+     * Finds where the records already in the directory end, so appending
+     * carries on after them. The last segment is scanned from its end, so an
+     * empty slot left by a crash is kept rather than written over.
+     *
+     * @return the index of the first free record.
+     * @throws IOException if a segment cannot be read, or was written with a
+     *                     different segment size.
+     */
+    private long findEnd() throws IOException {
+        int last = 0;
+        while (segmentFile(directory, last + 1).exists()) {
+            last++;
+        }
+        File file = segmentFile(directory, last);
+        if (!file.exists()) {
+            return 0;
+        }
+
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer segment = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+            int records = checkSize(file, segment);
+            if (records != recordsPerSegment) {
+                throw new IOException(file + " holds " + records + " records per segment, not "
+                        + recordsPerSegment);
+            }
+            return (long) last * recordsPerSegment + (end(segment) - HEADER_SIZE) / HandRecord.SIZE;
+        }
+    }
+
+    /**
+     * Reads a segment's header.
+     *
+     * @param file    the segment's file, for error messages.
+     * @param segment the mapped segment.
+     * @return the number of records the segment holds.
+     * @throws IOException if the header is missing or does not match the
+     *                     segment's length.
+     */
+    static int checkSize(File file, ByteBuffer segment) throws IOException {
+        if (segment.capacity() < HEADER_SIZE || segment.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a hand history segment");
+        }
+        int records = segment.getInt(4);
+        if (records <= 0 || HEADER_SIZE + (long) records * HandRecord.SIZE != segment.capacity()) {
+            throw new IOException(file + " has a damaged header");
+        }
+        return records;
+    }
+
+    /**
+     * Finds the end of the last record in a segment, looking backwards from
+     * the segment's end so empty slots below it are not mistaken for the end.
+     *
+     * @param segment the mapped segment.
+     * @return the offset just past the last record, or the header's size if
+     *         there are none.
+     */
+    static int end(ByteBuffer segment) {
+        HandRecord record = new HandRecord();
+        for (int offset = segment.capacity() - HandRecord.SIZE; offset >= HEADER_SIZE;
+                offset -= HandRecord.SIZE) {
+            if (record.readFrom(segment, offset)) {
+                return offset + HandRecord.SIZE;
+            }
+        }
+        return HEADER_SIZE;
+    }
+
+    /**
+     * @param directory the directory the segments are kept in.
+     * @param number    a segment's number.
+     * @return the segment's file.
+     */
+    static File segmentFile(File directory, int number) {
+        return new File(directory, String.format("%08d%s", number, EXTENSION));
+    }
+}
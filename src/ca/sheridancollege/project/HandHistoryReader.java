@@ -0,0 +1,116 @@
+package ca.sheridancollege.project;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a {@link HandHistoryLog} from start to end. Each segment is mapped
+ * read-only and scanned in order, so reading is limited by how fast the disk
+ * (or page cache) can deliver the pages rather than by parsing. The same
+ * {@link HandRecord} is returned for every record, so nothing is allocated per
+ * record; copy out whatever has to outlive the next call. Empty slots, such
+ * as one claimed by a writer that crashed, are skipped. Read a log after its
+ * writers have finished: a record still being written may be missed.
+ *
+ * <pre>
+ * try (HandHistoryReader reader = new HandHistoryReader(directory)) {
+ *     HandRecord record;
+ *     while ((record = reader.next()) != null) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class HandHistoryReader implements Closeable {
+
+    // The directory the segments are kept in
+    private final File directory;
+
+    // The record returned by next()
+    private final HandRecord record = new HandRecord();
+
+    // The segment being read
+    private int segment;
+    private RandomAccessFile file;
+    private MappedByteBuffer buffer;
+
+    // Offset of the next record in the segment
+    private int offset;
+
+    // Offset just past the segment's last record
+    private int end;
+
+    /**
+     * Opens a reader at the start of a log.
+     *
+     * @param directory the directory the log's segments are kept in.
+     * @throws IOException if the first segment cannot be opened.
+     */
+    public HandHistoryReader(File directory) throws IOException {
+        this.directory = directory;
+        open();
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record, or null at the end of the log. The same object is
+     *         returned each time.
+     * @throws IOException if a segment cannot be opened.
+     */
+    public HandRecord next() throws IOException {
+        while (buffer != null) {
+            while (offset < end) {
+                boolean found = record.readFrom(buffer, offset);
+                offset += HandRecord.SIZE;
+                if (found) {
+                    return record;
+                }
+            }
+            segment++;
+            open();
+        }
+        return null;
+    }
+
+    /**
+     * Closes the segment being read.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+        buffer = null;
+    }
+
+    /**
+     * Maps the current segment, or clears the buffer if it does not exist.
+     * Only the last segment can end before its final slot.
+     *
+     * @throws IOException if the segment cannot be opened or has no valid
+     *                     header.
+     */
+    private void open() throws IOException {
+        close();
+        File next = HandHistoryLog.segmentFile(directory, segment);
+        if (!next.exists()) {
+            return;
+        }
+        file = new RandomAccessFile(next, "r");
+        buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        HandHistoryLog.checkSize(next, buffer);
+        offset = HandHistoryLog.HEADER_SIZE;
+        end = HandHistoryLog.segmentFile(directory, segment + 1).exists()
+                ? buffer.capacity() : HandHistoryLog.end(buffer);
+    }
+}
@@ -0,0 +1,368 @@
+package ca.sheridancollege.project;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * One round of Blackjack in the fixed binary layout of the
+ * {@link HandHistoryLog}. Every record takes exactly {@link #SIZE} bytes, so
+ * the log can be appended to and scanned without any parsing or text
+ * formatting. A record is reused from round to round rather than allocated.
+ *
+ * <p>
+ * Layout, in big-endian byte order:
+ *
+ * <pre>
+ * offset size field
+ *      0    8 round id
+ *      8    8 seed of the shoe's shuffle, see BlackjackDeck#shuffle(long)
+ *     16    4 table
+ *     20    4 position in the shoe when the round started
+ *     24    1 marker, always 1, so unwritten space reads as the end of the log
+ *     25    1 number of seats
+ *     26    1 number of decisions
+ *     27    1 flags
+ *     28    5 number of cards in each seat's hand, then the dealer's
+ *     33    4 outcome of each seat (Outcome ordinal)
+ *     37    1 bit per seat, set if the seat's hidden card was revealed
+ *     38    5 final score of each seat's hand, then the dealer's
+ *     43    1 number of decks in the shoe
+ *     44   60 card codes (BlackjackCard#getCode), hand by hand in dealing order
+ *    104   24 decisions, each seat &lt;&lt; 2 | Decision ordinal
+ * </pre>
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class HandRecord {
+
+    /** Size of a record in bytes. */
+    public static final int SIZE = 128;
+
+    /** Largest number of seats recorded; the dealer's hand comes after them. */
+    public static final int MAX_SEATS = 4;
+
+    /** Largest number of cards recorded across every hand. */
+    public static final int MAX_CARDS = 60;
+
+    /** Largest number of decisions recorded. */
+    public static final int MAX_DECISIONS = 24;
+
+    /** Flag set when the round did not fit and was cut short. */
+    public static final int TRUNCATED = 1;
+
+    /** Flag set when the shoe ran out and was reshuffled during the round. */
+    public static final int RESHUFFLED = 2;
+
+    /** Flag set when the dealer hit soft 17s. */
+    public static final int HITS_SOFT_17 = 4;
+
+    /** Flag set when the dealer checked for a Blackjack before the players played. */
+    public static final int PEEKS = 8;
+
+    // Field offsets
+    private static final int ROUND_ID = 0;
+    private static final int SEED = 8;
+    private static final int TABLE = 16;
+    private static final int SHOE_OFFSET = 20;
+    private static final int MARKER = 24;
+    private static final int SEATS = 25;
+    private static final int DECISION_COUNT = 26;
+    private static final int FLAGS = 27;
+    private static final int HAND_SIZES = 28;
+    private static final int OUTCOMES = 33;
+    private static final int REVEALED = 37;
+    private static final int SCORES = 38;
+    private static final int DECKS = 43;
+    private static final int CARDS = 44;
+    private static final int DECISIONS = 104;
+
+    private static final Outcome[] OUTCOME_VALUES = Outcome.values();
+    private static final Decision[] DECISION_VALUES = Decision.values();
+
+    // The record's bytes; the fields are read and written in place
+    private final byte[] bytes = new byte[SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+    // Number of cards written so far
+    private int cardCount;
+
+    /**
+     * Starts recording a new round.
+     *
+     * @param table      the table the round is played at.
+     * @param roundId    the round's number at the table.
+     * @param decks      the number of decks in the shoe.
+     * @param seed       the seed of the shoe's shuffle.
+     * @param shoeOffset the position in the shoe when the round started.
+     */
+    public void start(int table, long roundId, int decks, long seed, int shoeOffset) {
+        for (int i = 0; i < SIZE; i++) {
+            bytes[i] = 0;
+        }
+        buffer.putLong(ROUND_ID, roundId);
+        buffer.putLong(SEED, seed);
+        buffer.putInt(TABLE, table);
+        buffer.putInt(SHOE_OFFSET, shoeOffset);
+        bytes[MARKER] = 1;
+        bytes[DECKS] = (byte) decks;
+        cardCount = 0;
+    }
+
+    /**
+     * Records a player's decision.
+     *
+     * @param seat     the player's seat.
+     * @param decision the decision.
+     */
+    public void addDecision(int seat, Decision decision) {
+        int count = bytes[DECISION_COUNT];
+        if (count == MAX_DECISIONS || seat >= MAX_SEATS) {
+            bytes[FLAGS] |= TRUNCATED;
+            return;
+        }
+        bytes[DECISIONS + count] = (byte) (seat << 2 | decision.ordinal());
+        bytes[DECISION_COUNT] = (byte) (count + 1);
+    }
+
+    /**
+     * Records every hand and outcome once the round has been settled.
+     *
+     * @param players  the players, in seat order.
+     * @param dealer   the dealer.
+     * @param outcomes the outcome of each player's hand.
+     */
+    public void finish(List<BlackjackPlayer> players, BlackjackPlayer dealer, Outcome[] outcomes) {
+        int seats = Math.min(players.size(), MAX_SEATS);
+        if (seats < players.size()) {
+            bytes[FLAGS] |= TRUNCATED;
+        }
+        bytes[SEATS] = (byte) seats;
+        for (int seat = 0; seat < seats; seat++) {
+            BlackjackPlayer player = players.get(seat);
+            bytes[HAND_SIZES + seat] = (byte) addHand(player);
+            bytes[SCORES + seat] = (byte) player.getScore();
+            bytes[OUTCOMES + seat] = (byte) outcomes[seat].ordinal();
+            if (!player.hasHiddenCard()) {
+                bytes[REVEALED] |= 1 << seat;
+            }
+        }
+        bytes[HAND_SIZES + MAX_SEATS] = (byte) addHand(dealer);
+        bytes[SCORES + MAX_SEATS] = (byte) dealer.getScore();
+    }
+
+    /**
+     * Marks the round as dealt across a reshuffle, so its cards cannot be found
+     * again from the seed alone.
+     */
+    public void markReshuffled() {
+        bytes[FLAGS] |= RESHUFFLED;
+    }
+
+    /**
+     * Records the house rules the round is played under.
+     *
+     * @param rules the house rules.
+     */
+    public void setRules(HouseRules rules) {
+        bytes[FLAGS] &= ~(HITS_SOFT_17 | PEEKS);
+        if (rules.hitsSoft17()) {
+            bytes[FLAGS] |= HITS_SOFT_17;
+        }
+        if (rules.peeks()) {
+            bytes[FLAGS] |= PEEKS;
+        }
+    }
+
+    /**
+     * Adds a hand's cards, hidden card first since it was dealt first.
+     *
+     * @param player the hand.
+     * @return the number of cards added.
+     */
+    private int addHand(BlackjackPlayer player) {
+        int added = 0;
+        if (player.getHiddenCard() != null) {
+            added += addCard(player.getHiddenCard());
+        }
+        List<BlackjackCard> hand = player.getHand();
+        for (int i = 0; i < hand.size(); i++) {
+            added += addCard(hand.get(i));
+        }
+        return added;
+    }
+
+    /**
+     * @param card a card to add.
+     * @return 1 if the card fit, otherwise 0.
+     */
+    private int addCard(BlackjackCard card) {
+        if (cardCount == MAX_CARDS) {
+            bytes[FLAGS] |= TRUNCATED;
+            return 0;
+        }
+        bytes[CARDS + cardCount++] = (byte) card.getCode();
+        return 1;
+    }
+
+    /**
+     * Copies the record into a buffer.
+     *
+     * @param target the buffer.
+     * @param offset where the record starts in the buffer.
+     */
+    void writeTo(ByteBuffer target, int offset) {
+        ByteBuffer slot = target.duplicate();
+        slot.position(offset);
+        slot.put(bytes);
+    }
+
+    /**
+     * Loads a record from a buffer.
+     *
+     * @param source the buffer.
+     * @param offset where the record starts in the buffer.
+     * @return false if there is no record there.
+     */
+    boolean readFrom(ByteBuffer source, int offset) {
+        if (source.get(offset + MARKER) == 0) {
+            return false;
+        }
+        ByteBuffer slot = source.duplicate();
+        slot.position(offset);
+        slot.get(bytes);
+        return true;
+    }
+
+    /**
+     * @return the round's number at its table.
+     */
+    public long getRoundId() {
+        return buffer.getLong(ROUND_ID);
+    }
+
+    /**
+     * @return the seed of the shoe's shuffle.
+     */
+    public long getSeed() {
+        return buffer.getLong(SEED);
+    }
+
+    /**
+     * @return the table the round was played at.
+     */
+    public int getTable() {
+        return buffer.getInt(TABLE);
+    }
+
+    /**
+     * @return the position in the shoe when the round started.
+     */
+    public int getShoeOffset() {
+        return buffer.getInt(SHOE_OFFSET);
+    }
+
+    /**
+     * @return the number of seats recorded.
+     */
+    public int getSeats() {
+        return bytes[SEATS];
+    }
+
+    /**
+     * @return the number of decks in the shoe.
+     */
+    public int getDecks() {
+        return bytes[DECKS];
+    }
+
+    /**
+     * @return the house rules the round was played under.
+     */
+    public HouseRules getRules() {
+        return HouseRules.of((bytes[FLAGS] & HITS_SOFT_17) != 0, (bytes[FLAGS] & PEEKS) != 0);
+    }
+
+    /**
+     * @return true if the shoe was reshuffled during the round.
+     */
+    public boolean isReshuffled() {
+        return (bytes[FLAGS] & RESHUFFLED) != 0;
+    }
+
+    /**
+     * @param seat a seat.
+     * @return true if the seat's hidden card was revealed by the end of the
+     *         round.
+     */
+    public boolean isRevealed(int seat) {
+        return (bytes[REVEALED] & 1 << seat) != 0;
+    }
+
+    /**
+     * @param hand a seat, or {@link #MAX_SEATS} for the dealer.
+     * @return the final score of the hand.
+     */
+    public int getScore(int hand) {
+        return bytes[SCORES + hand];
+    }
+
+    /**
+     * @return true if the round did not fit in the record and was cut short.
+     */
+    public boolean isTruncated() {
+        return (bytes[FLAGS] & TRUNCATED) != 0;
+    }
+
+    /**
+     * @param hand a seat, or {@link #MAX_SEATS} for the dealer.
+     * @return the number of cards in the hand.
+     */
+    public int getHandSize(int hand) {
+        return bytes[HAND_SIZES + hand];
+    }
+
+    /**
+     * @param hand  a seat, or {@link #MAX_SEATS} for the dealer. Unused seats
+     *              hold no cards, so the dealer's cards follow the last seat's.
+     * @param index the index of the card in the hand, in dealing order.
+     * @return the card.
+     */
+    public BlackjackCard getCard(int hand, int index) {
+        int offset = CARDS + index;
+        for (int i = 0; i < hand; i++) {
+            offset += bytes[HAND_SIZES + i];
+        }
+        return BlackjackCard.of(bytes[offset]);
+    }
+
+    /**
+     * @param seat a seat.
+     * @return the outcome of the seat's hand.
+     */
+    public Outcome getOutcome(int seat) {
+        return OUTCOME_VALUES[bytes[OUTCOMES + seat]];
+    }
+
+    /**
+     * @return the number of decisions recorded.
+     */
+    public int getDecisionCount() {
+        return bytes[DECISION_COUNT];
+    }
+
+    /**
+     * @param index the index of the decision, in the order they were made.
+     * @return the seat that made the decision.
+     */
+    public int getDecisionSeat(int index) {
+        return bytes[DECISIONS + index] >> 2;
+    }
+
+    /**
+     * @param index the index of the decision, in the order they were made.
+     * @return the decision.
+     */
+    public Decision getDecision(int index) {
+        return DECISION_VALUES[bytes[DECISIONS + index] & 3];
+    }
+}
@@ -0,0 +1,112 @@
+package ca.sheridancollege.project;
+
+/**
+ * Holds the house rules a table is played under. There are only a few
+ * combinations of rules, so every combination is created once and shared;
+ * get one with {@link #of(boolean, boolean)} or {@link #parse(String)}. The
+ * dealer's draws for each combination are worked out ahead of time by
+ * {@link DealerEngine}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public final class HouseRules {
+
+    /** Number of combinations of rules. */
+    public static final int COUNT = 4;
+
+    // Every combination, indexed by index()
+    private static final HouseRules[] ALL = new HouseRules[COUNT];
+
+    static {
+        for (int index = 0; index < COUNT; index++) {
+            ALL[index] = new HouseRules((index & 1) != 0, (index & 2) != 0);
+        }
+    }
+
+    /**
+     * The rules the game has always been played under: the dealer stands on
+     * soft 17 and does not check the hidden card for a Blackjack, so doubled
+     * hands lose both bets to a dealer Blackjack.
+     */
+    public static final HouseRules DEFAULT = of(false, false);
+
+    // Whether the dealer hits a soft 17
+    private final boolean hitsSoft17;
+
+    // Whether the dealer checks for a Blackjack before the players play
+    private final boolean peeks;
+
+    private HouseRules(boolean hitsSoft17, boolean peeks) {
+        this.hitsSoft17 = hitsSoft17;
+        this.peeks = peeks;
+    }
+
+    /**
+     * Gets the rules with the given options.
+     *
+     * @param hitsSoft17 whether the dealer hits a soft 17 (H17) rather than
+     *                   standing on it (S17).
+     * @param peeks      whether the dealer checks the hidden card when dealt
+     *                   an Ace or ten, ending the round at once with a
+     *                   Blackjack.
+     * @return the rules.
+     */
+    public static HouseRules of(boolean hitsSoft17, boolean peeks) {
+        return ALL[(hitsSoft17 ? 1 : 0) | (peeks ? 2 : 0)];
+    }
+
+    /**
+     * @return every combination of rules, in {@link #index()} order.
+     */
+    public static HouseRules[] values() {
+        return ALL.clone();
+    }
+
+    /**
+     * Reads rules written as by {@link #toString()}: "s17" or "h17",
+     * optionally followed by "-peek".
+     *
+     * @param text the rules as text.
+     * @return the rules.
+     * @throws IllegalArgumentException if the text is not a rule set.
+     */
+    public static HouseRules parse(String text) {
+        for (HouseRules rules : ALL) {
+            if (rules.toString().equalsIgnoreCase(text)) {
+                return rules;
+            }
+        }
+        throw new IllegalArgumentException("Unknown house rules: " + text + " (expected s17, h17, s17-peek or h17-peek)");
+    }
+
+    /**
+     * @return true if the dealer hits a soft 17.
+     */
+    public boolean hitsSoft17() {
+        return hitsSoft17;
+    }
+
+    /**
+     * @return true if the dealer checks for a Blackjack before the players
+     *         play.
+     */
+    public boolean peeks() {
+        return peeks;
+    }
+
+    /**
+     * @return a number from 0 to {@link #COUNT} - 1 that is different for
+     *         every combination of rules, for indexing tables.
+     */
+    public int index() {
+        return (hitsSoft17 ? 1 : 0) | (peeks ? 2 : 0);
+    }
+
+    /**
+     * @return the rules in the form read by {@link #parse(String)}.
+     */
+    @Override
+    public String toString() {
+        return (hitsSoft17 ? "h17" : "s17") + (peeks ? "-peek" : "");
+    }
+}
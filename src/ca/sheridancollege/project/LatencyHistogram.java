@@ -0,0 +1,147 @@
+package ca.sheridancollege.project;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds, bucketed the way HdrHistogram does
+ * it: values are grouped by their highest set bit, and each group is split
+ * into {@link #SUB_BUCKETS} equal buckets, so every recorded value is known to
+ * within 1/16 (about 6%) of its size whether it is 50 nanoseconds or 5
+ * seconds. Recording is one array increment, with no allocation or locking.
+ *
+ * <p>
+ * A histogram has a single writer, the thread that owns it. Other threads may
+ * read it at any time with {@link #addTo(long[])}; each bucket is written with
+ * an ordered store, so readers never see a torn count, only one that is a
+ * moment old. Snapshots from several threads are merged by adding them into the
+ * same array, and read back with the static methods.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class LatencyHistogram {
+
+    // Number of bits of a value kept below its highest set bit
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Number of buckets each power of two is split into. */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Number of buckets in a histogram, enough for any positive long. */
+    public static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    // Number of values recorded in each bucket
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records a value. Only call this from the thread that owns the histogram.
+     *
+     * @param nanos the value, in nanoseconds; negative values count as 0.
+     */
+    public void record(long nanos) {
+        int bucket = bucket(nanos);
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+    }
+
+    /**
+     * Adds this histogram's counts to a snapshot.
+     *
+     * @param snapshot an array of {@link #BUCKETS} counts.
+     */
+    public void addTo(long[] snapshot) {
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] += counts.get(i);
+        }
+    }
+
+    /**
+     * @param snapshot a snapshot made with {@link #addTo(long[])}.
+     * @return the number of values recorded.
+     */
+    public static long count(long[] snapshot) {
+        long count = 0;
+        for (long bucket : snapshot) {
+            count += bucket;
+        }
+        return count;
+    }
+
+    /**
+     * @param snapshot a snapshot made with {@link #addTo(long[])}.
+     * @return the mean of the values recorded, or 0 if there are none.
+     */
+    public static double mean(long[] snapshot) {
+        long count = 0;
+        double total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (snapshot[i] != 0) {
+                count += snapshot[i];
+                total += (double) snapshot[i] * midpoint(i);
+            }
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Finds the value at a percentile.
+     *
+     * @param snapshot   a snapshot made with {@link #addTo(long[])}.
+     * @param percentile the percentile, from 0 to 100.
+     * @return the highest value in the bucket the percentile falls in, or 0 if
+     *         nothing was recorded.
+     */
+    public static long percentile(long[] snapshot, double percentile) {
+        long count = count(snapshot);
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highest(i);
+            }
+        }
+        return highest(BUCKETS - 1);
+    }
+
+    /**
+     * @param nanos a value.
+     * @return the bucket the value is counted in.
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * @param bucket a bucket.
+     * @return the lowest value counted in the bucket.
+     */
+    static long lowest(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        return (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+    }
+
+    /**
+     * @param bucket a bucket.
+     * @return the highest value counted in the bucket.
+     */
+    static long highest(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowest(bucket + 1) - 1;
+    }
+
+    /**
+     * @param bucket a bucket.
+     * @return the value in the middle of the bucket.
+     */
+    private static double midpoint(int bucket) {
+        return (lowest(bucket) + (double) highest(bucket)) / 2;
+    }
+}
@@ -0,0 +1,231 @@
+package ca.sheridancollege.project;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps every player's balance and the house's position for the
+ * {@link GameServer}. Many tables settle bets at once, so nothing here takes
+ * a lock: each balance is its own atomic counter, debited with a
+ * compare-and-set loop so it can never go negative, and the house's totals
+ * are striped adders that tables add to without contending. Amounts are whole
+ * chips.
+ *
+ * <p>
+ * A bet is held as a {@link Wager} from the time it is placed until it is
+ * settled. The house's exposure, the most it could have to pay out on every
+ * open wager, is kept in a single atomic counter, so reading it always gives a
+ * consistent figure even while tables are placing and settling bets.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class Ledger {
+
+    /** Balance a new player starts with. */
+    public static final long STARTING_BALANCE = 1000;
+
+    // Every player's balance, by name
+    private final ConcurrentMap<String, AtomicLong> balances = new ConcurrentHashMap<>();
+
+    // The most the house could pay out on the open wagers
+    private final AtomicLong exposure = new AtomicLong();
+
+    // Total amount bet, and the house's net win, over every settled wager
+    private final LongAdder wagered = new LongAdder();
+    private final LongAdder houseNet = new LongAdder();
+
+    /**
+     * Opens an account with the starting balance, unless the player already has
+     * one.
+     *
+     * @param player the player's name.
+     * @return the player's balance.
+     */
+    public long open(String player) {
+        AtomicLong balance = balances.get(player);
+        if (balance == null) {
+            AtomicLong opened = new AtomicLong(STARTING_BALANCE);
+            balance = balances.putIfAbsent(player, opened);
+            if (balance == null) {
+                balance = opened;
+            }
+        }
+        return balance.get();
+    }
+
+    /**
+     * @param player the player's name.
+     * @return the player's balance, or 0 if the player has no account.
+     */
+    public long getBalance(String player) {
+        AtomicLong balance = balances.get(player);
+        return balance == null ? 0 : balance.get();
+    }
+
+    /**
+     * Takes a bet out of a player's balance.
+     *
+     * @param player the player's name.
+     * @param amount the amount bet.
+     * @return the open wager, or null if the player cannot cover the bet.
+     */
+    public Wager placeBet(String player, long amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("A bet must be positive: " + amount);
+        }
+        AtomicLong balance = balances.get(player);
+        if (balance == null || !debit(balance, amount)) {
+            return null;
+        }
+        Wager wager = new Wager(balance, amount);
+        exposure.addAndGet(wager.exposure);
+        return wager;
+    }
+
+    /**
+     * Doubles an open wager, taking the extra stake out of the player's
+     * balance.
+     *
+     * @param wager the wager.
+     * @return true if the player could cover the extra stake.
+     */
+    public boolean doubleBet(Wager wager) {
+        if (wager.doubled) {
+            throw new IllegalStateException("The wager is already doubled");
+        }
+        if (!debit(wager.balance, wager.stake)) {
+            return false;
+        }
+        wager.stake *= 2;
+        wager.doubled = true;
+        // A doubled hand has three cards, so it can win at most even money
+        long raised = wager.stake;
+        exposure.addAndGet(raised - wager.exposure);
+        wager.exposure = raised;
+        return true;
+    }
+
+    /**
+     * Settles a wager: the stake and any winnings go back to the player, and the
+     * house keeps the rest.
+     *
+     * @param wager   the wager.
+     * @param outcome the outcome of the hand.
+     * @return the amount the player won (positive) or lost (negative).
+     */
+    public long settle(Wager wager, Outcome outcome) {
+        if (wager.settled) {
+            throw new IllegalStateException("The wager is already settled");
+        }
+        wager.settled = true;
+        long net = outcome.settle(wager.stake);
+        wager.balance.addAndGet(wager.stake + net);
+        exposure.addAndGet(-wager.exposure);
+        wagered.add(wager.stake);
+        houseNet.add(-net);
+        return net;
+    }
+
+    /**
+     * Gives back the stake of a wager that will not be played, for example
+     * because the player left before the round started.
+     *
+     * @param wager the wager.
+     */
+    public void cancel(Wager wager) {
+        if (wager.settled) {
+            throw new IllegalStateException("The wager is already settled");
+        }
+        wager.settled = true;
+        wager.balance.addAndGet(wager.stake);
+        exposure.addAndGet(-wager.exposure);
+    }
+
+    /**
+     * @return the most the house could have to pay out on the open wagers.
+     */
+    public long getExposure() {
+        return exposure.get();
+    }
+
+    /**
+     * @return the total amount bet on settled wagers.
+     */
+    public long getWagered() {
+        return wagered.sum();
+    }
+
+    /**
+     * @return the amount the house has won (positive) or lost (negative).
+     */
+    public long getHouseNet() {
+        return houseNet.sum();
+    }
+
+    /**
+     * @return the number of accounts.
+     */
+    public int size() {
+        return balances.size();
+    }
+
+    /**
+     * Takes an amount out of a balance, unless the balance is too small.
+     *
+     * @param balance the balance.
+     * @param amount  the amount.
+     * @return true if the balance covered the amount.
+     */
+    private static boolean debit(AtomicLong balance, long amount) {
+        long current;
+        do {
+            current = balance.get();
+            if (current < amount) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - amount));
+        return true;
+    }
+
+    /**
+     * A bet that has been placed and not yet settled. A wager belongs to the
+     * table it was placed at and is only used by that table's thread.
+     */
+    public static class Wager {
+
+        // The balance the stake came from and is paid back to
+        private final AtomicLong balance;
+
+        // The amount at stake
+        private long stake;
+
+        // The most the house could pay out on the wager
+        private long exposure;
+
+        // Whether the wager has been doubled, and whether it has been closed
+        private boolean doubled;
+        private boolean settled;
+
+        Wager(AtomicLong balance, long stake) {
+            this.balance = balance;
+            this.stake = stake;
+            this.exposure = Outcome.BLACKJACK.settle(stake);
+        }
+
+        /**
+         * @return the amount at stake.
+         */
+        public long getStake() {
+            return stake;
+        }
+
+        /**
+         * @return true if the wager has been doubled.
+         */
+        public boolean isDoubled() {
+            return doubled;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package ca.sheridancollege.project;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Drives a {@link GameServer} with many simulated clients from a single thread.
+ * Each client joins, bets, hits below 17 and stands otherwise, and keeps
+ * betting until it has played the requested number of rounds.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class LoadGenerator {
+
+    /** Amount each client bets per round. */
+    public static final int BET = 10;
+
+    // Where the server is listening
+    private final InetSocketAddress address;
+
+    // Number of clients to connect
+    private final int clients;
+
+    // Number of rounds each client plays
+    private final int rounds;
+
+    // Results received so far, across every client
+    private long results;
+
+    // Clients still playing
+    private int active;
+
+    /**
+     * Constructs a new load generator.
+     *
+     * @param address where the server is listening.
+     * @param clients the number of clients to connect.
+     * @param rounds  the number of rounds each client plays.
+     */
+    public LoadGenerator(InetSocketAddress address, int clients, int rounds) {
+        this.address = address;
+        this.clients = clients;
+        this.rounds = rounds;
+    }
+
+    /**
+     * Connects every client and runs until each has played its rounds.
+     *
+     * @return the number of hands settled per second.
+     * @throws IOException if a connection fails.
+     */
+    public double run() throws IOException {
+        long start = System.nanoTime();
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < clients; i++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                Bot bot = new Bot(channel, "bot" + i);
+                channel.register(selector, SelectionKey.OP_READ, bot);
+                bot.send("join " + bot.name + "\nbet " + BET);
+            }
+            active = clients;
+
+            while (active > 0) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Bot bot = (Bot) key.attachment();
+                    if (!bot.read()) {
+                        key.cancel();
+                        bot.channel.close();
+                        active--;
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return results * 1e9 / elapsed;
+    }
+
+    /**
+     * @return the number of hands settled so far, across every client.
+     */
+    public long getResults() {
+        return results;
+    }
+
+    /**
+     * One simulated client.
+     */
+    private class Bot {
+
+        final SocketChannel channel;
+        final String name;
+        final ByteBuffer input = ByteBuffer.allocate(4096);
+
+        // The bot's current score
+        int score;
+
+        // Rounds played so far
+        int played;
+
+        Bot(SocketChannel channel, String name) {
+            this.channel = channel;
+            this.name = name;
+        }
+
+        /**
+         * Reads from the server and reacts to every complete line.
+         *
+         * @return false once the bot is finished or the server has disconnected.
+         * @throws IOException if the socket fails.
+         */
+        boolean read() throws IOException {
+            if (channel.read(input) < 0) {
+                return false;
+            }
+            input.flip();
+            int start = 0;
+            for (int i = 0; i < input.limit(); i++) {
+                if (input.get(i) == '\n') {
+                    String line = new String(input.array(), start, i - start, StandardCharsets.US_ASCII);
+                    start = i + 1;
+                    if (!handle(line)) {
+                        return false;
+                    }
+                }
+            }
+            input.position(start);
+            input.compact();
+            return true;
+        }
+
+        /**
+         * Reacts to one line from the server.
+         *
+         * @param line the line.
+         * @return false once the bot has played all its rounds.
+         * @throws IOException if the socket fails.
+         */
+        boolean handle(String line) throws IOException {
+            String[] words = line.split(" ");
+            switch (words[0]) {
+                case "DEAL":
+                    score = Integer.parseInt(words[4]);
+                    break;
+                case "TURN":
+                    if (name.equals(words[1])) {
+                        send(score < 17 ? "hit" : "stand");
+                    }
+                    break;
+                case "CARD":
+                    score = Integer.parseInt(words[3]);
+                    if (score < 17) {
+                        send("hit");
+                    } else if (score < 21) {
+                        send("stand");
+                    }
+                    break;
+                case "RESULT":
+                    results++;
+                    if (++played >= rounds) {
+                        send("quit");
+                        return false;
+                    }
+                    send("bet " + BET);
+                    break;
+                case "ERR":
+                    System.err.println(name + ": " + line);
+                    break;
+                default:
+                    break;
+            }
+            return true;
+        }
+
+        /**
+         * Sends a line to the server. Lines are short enough that a blocking-free
+         * write never fills the socket buffer.
+         *
+         * @param line the line, without the trailing newline.
+         * @throws IOException if the socket fails.
+         */
+        void send(String line) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
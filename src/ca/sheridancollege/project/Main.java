@@ -1,6 +1,11 @@
 package ca.sheridancollege.project;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
 import java.util.Scanner;
+import javax.management.JMException;
 
 /**
  * The main entry point of the Blackjack game application.
@@ -9,60 +14,586 @@ import java.util.Scanner;
  */
 public class Main {
 
-    /** A scanner object to handle user input throughout the application. */
-    public static final Scanner SCANNER = new Scanner(System.in);
+    /** Where everything the application shows is rendered. */
+    public static final OutputSink OUT = TerminalSink.STDOUT;
 
-    /** Player manager to manage players and their respective operations. */
-    public static final PlayerManager playerManager = new PlayerManager();
+    /** Directory player accounts are kept in, set with -Dblackjack.data. */
+    private static final File DATA_DIRECTORY = new File(System.getProperty("blackjack.data", "data"));
+
+    /** Number of decks in the table's shoe. */
+    private static final int SHOE_DECKS = 6;
+
+    /** Hands between the rows of a simulation's checkpoint file. */
+    private static final long CHECKPOINT_INTERVAL = 1_000_000;
+
+    /**
+     * Whether the game metrics are published over JMX, set with
+     * -Dblackjack.metrics. Starting the platform MBean server takes longer
+     * than a short simulation, so fast-start launches turn it off.
+     */
+    private static final boolean PUBLISH_METRICS = !"false".equals(System.getProperty("blackjack.metrics"));
 
     /**
      * The main method which drives the game.
      * 
-     * @param args command-line arguments (not used).
+     * @param args command-line arguments. Pass "simulate [hands] [seed]
+     *             [history] [checkpoints] [rules] [corpus]" to run a headless
+     *             simulation, "compare [hands] [seed] [rules] [corpus]" to
+     *             compare strategies on the same cards, "chart [rounds]
+     *             [seed]" to generate a basic strategy chart, "corpus
+     *             &lt;file&gt; [shoes] [decks] [seed]" to write a shoe corpus
+     *             for simulations, "coordinate [hands] [seed] [workers]
+     *             [port] [rules]" to share a simulation between worker
+     *             processes, "work [host] [port]" to be one, "server [port]
+     *             [history] [rules]" to host tables over the network,
+     *             "loadtest [clients] [rounds] [host] [port]" to drive a
+     *             running server, "history &lt;directory&gt;" to summarize a
+     *             hand history log, or "replay &lt;directory&gt;" to re-play a
+     *             log and check for divergences, instead of the interactive
+     *             game.
      */
     public static void main(String[] args) {
-        System.out.println("\nWelcome to Blackjack!");
+        if (args.length > 0 && "simulate".equals(args[0])) {
+            runSimulation(args);
+            return;
+        }
+        if (args.length > 0 && "compare".equals(args[0])) {
+            compareStrategies(args);
+            return;
+        }
+        if (args.length > 0 && "chart".equals(args[0])) {
+            generateChart(args);
+            return;
+        }
+        if (args.length > 1 && "corpus".equals(args[0])) {
+            writeCorpus(args);
+            return;
+        }
+        if (args.length > 0 && "coordinate".equals(args[0])) {
+            coordinateSimulation(args);
+            return;
+        }
+        if (args.length > 0 && "work".equals(args[0])) {
+            runWorker(args);
+            return;
+        }
+        if (args.length > 0 && "server".equals(args[0])) {
+            runServer(args);
+            return;
+        }
+        if (args.length > 0 && "loadtest".equals(args[0])) {
+            runLoadTest(args);
+            return;
+        }
+        if (args.length > 1 && "history".equals(args[0])) {
+            summarizeHistory(new File(args[1]));
+            return;
+        }
+        if (args.length > 1 && "replay".equals(args[0])) {
+            replayHistory(new File(args[1]));
+            return;
+        }
+        if (args.length > 0 && "startup".equals(args[0])) {
+            measureStartup(args);
+            return;
+        }
+
+        OUT.println("\nWelcome to Blackjack!");
 
         // Main game loop to continually provide user options until they choose to exit.
         while (true) {
             printPlayers(); // Display the current list of players
-            System.out.println("Options:");
-            System.out.println("1. Add New Player");
-            System.out.println("2. Start Game");
-            System.out.println("3. Exit");
-            System.out.print("Enter your choice: ");
+            OUT.println("Options:");
+            OUT.println("1. Add New Player");
+            OUT.println("2. Start Game");
+            OUT.println("3. Exit");
+            OUT.print("Enter your choice: ");
+            OUT.flush();
 
-            int choice = SCANNER.nextInt();
-            SCANNER.nextLine(); // Consume the newline character after nextInt
-            clearScreen(); // Clear the terminal/console screen for clean display
+            int choice = scanner().nextInt();
+            scanner().nextLine(); // Consume the newline character after nextInt
+            OUT.clearScreen(); // Clear the terminal/console screen for clean display
 
             // Handle user choice
             switch (choice) {
                 case 1:
-                    System.out.print("Enter player name: ");
-                    String playerName = SCANNER.nextLine();
-                    clearScreen();
-                    if (playerManager.addPlayer(playerName)) {
-                        System.out.println(playerName + " has been added.");
+                    OUT.print("Enter player name: ");
+                    OUT.flush();
+                    String playerName = scanner().nextLine();
+                    OUT.clearScreen();
+                    if (playerManager().addPlayer(playerName)) {
+                        OUT.println(playerName + " has been added.");
                     }
                     break;
                 case 2:
-                    if (playerManager.startGame()) {
-                        for (BlackjackPlayer player : playerManager.getPlayers()) {
+                    if (playerManager().startGame()) {
+                        for (BlackjackPlayer player : playerManager().getPlayers()) {
                             player.resetHand();
                         }
-                        BlackjackGame game = new BlackjackGame("Blackjack", playerManager.getPlayers());
+                        BlackjackGame game = new BlackjackGame("Blackjack", playerManager().getPlayers(), Table.SHOE);
+                        game.setOutput(OUT);
                         game.play(); // Start the game
+                        playerManager().recordResults(game.getOutcomes());
                     }
                     break;
                 case 3:
-                    System.out.println("Thanks for playing!");
-                    SCANNER.close(); // Close the scanner object
+                    OUT.println("Thanks for playing!");
+                    OUT.flush();
+                    closeRegistry();
+                    scanner().close(); // Close the scanner object
                     System.exit(0); // Terminate the application
                 default:
-                    System.out.println("Invalid choice!"); // Handle invalid user input
+                    OUT.println("Invalid choice!"); // Handle invalid user input
+            }
+        }
+    }
+
+    /**
+     * Runs a headless simulation of a basic strategy player on every core and
+     * prints the aggregated results.
+     *
+     * @param args the command-line arguments: "simulate [hands] [seed]
+     *             [history] [checkpoints] [rules] [corpus]", where history is
+     *             a directory every hand is logged to (or "-" for none),
+     *             checkpoints is a CSV file the running results are written to
+     *             every {@link #CHECKPOINT_INTERVAL} hands (or "-" for none),
+     *             rules are the {@link HouseRules}, such as h17-peek (or "-"
+     *             for the default) and corpus is a {@link ShoeCorpus} file the
+     *             shoes are dealt from instead of shuffling.
+     */
+    private static void runSimulation(String[] args) {
+        long hands = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000L;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        HouseRules rules = args.length > 5 && !"-".equals(args[5]) ? HouseRules.parse(args[5])
+                : HouseRules.DEFAULT;
+
+        OUT.println("Simulating " + hands + " hands on " + Runtime.getRuntime().availableProcessors()
+                + " cores (seed " + seed + ", rules " + rules + ")...");
+        Simulator simulator = new Simulator(new BasicStrategy(), seed);
+        simulator.setRules(rules);
+        simulator.setBatchLanes(Simulator.DEFAULT_BATCH_LANES);
+        publishMetrics();
+        OUT.flush();
+        HandHistoryLog history = null;
+        SimulationCheckpoints checkpoints = null;
+        ShoeCorpus corpus = null;
+        try {
+            if (args.length > 6) {
+                corpus = new ShoeCorpus(new File(args[6]));
+                simulator.setDecks(corpus.getDecks());
+                simulator.setCorpus(corpus);
+                OUT.println("Dealing " + corpus.getShoeCount() + " shoes of " + corpus.getDecks()
+                        + " decks from " + args[6]);
+                warnIfCorpusSmall(simulator, corpus, hands);
+            }
+            if (args.length > 3 && !"-".equals(args[3])) {
+                history = new HandHistoryLog(new File(args[3]));
+                simulator.setHistory(history);
+            }
+            if (args.length > 4 && !"-".equals(args[4])) {
+                checkpoints = new SimulationCheckpoints(new File(args[4]));
+                simulator.setCheckpoints(checkpoints, CHECKPOINT_INTERVAL);
+            }
+            OUT.println(simulator.run(hands).toString());
+            if (history != null) {
+                history.close();
+                OUT.println(history.size() + " hands in the history at " + history.getDirectory());
+            }
+            if (checkpoints != null) {
+                checkpoints.close();
+            }
+            if (corpus != null) {
+                corpus.close();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            OUT.println("Could not write the simulation's output: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            OUT.println("Could not simulate: " + e.getMessage());
+        }
+        OUT.flush();
+    }
+
+    /**
+     * Compares basic strategy with a player who plays like the dealer, hitting
+     * below 17, on the same cards, and prints each strategy's results and the
+     * difference between them.
+     *
+     * @param args the command-line arguments: "compare [hands] [seed] [rules]
+     *             [corpus]", where rules are the {@link HouseRules} (or "-"
+     *             for the default) and corpus is a {@link ShoeCorpus} file the
+     *             shoes are dealt from instead of shuffling.
+     */
+    private static void compareStrategies(String[] args) {
+        long hands = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000L;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        HouseRules rules = args.length > 3 && !"-".equals(args[3]) ? HouseRules.parse(args[3])
+                : HouseRules.DEFAULT;
+
+        OUT.println("Comparing strategies over " + hands + " hands on " + Runtime.getRuntime().availableProcessors()
+                + " cores (seed " + seed + ", rules " + rules + ")...");
+        Simulator simulator = new Simulator(new BasicStrategy(), seed);
+        simulator.setRules(rules);
+        publishMetrics();
+        OUT.flush();
+        try {
+            ShoeCorpus corpus = null;
+            if (args.length > 4) {
+                corpus = new ShoeCorpus(new File(args[4]));
+                simulator.setDecks(corpus.getDecks());
+                simulator.setCorpus(corpus);
+                warnIfCorpusSmall(simulator, corpus, hands);
+            }
+            OUT.println(simulator.compare(hands, new StrategyChart()).toString());
+            if (corpus != null) {
+                corpus.close();
+            }
+        } catch (IOException e) {
+            OUT.println("Could not read the corpus: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            OUT.println("Could not compare: " + e.getMessage());
+        }
+        OUT.flush();
+    }
+
+    /**
+     * Warns when a corpus is too small for a run, so its blocks deal some of
+     * their shoes twice and their results are not independent. A corpus with
+     * fewer shoes than the run has blocks is rejected by the simulator
+     * instead.
+     *
+     * @param simulator the simulator dealing from the corpus.
+     * @param corpus    the corpus.
+     * @param hands     the number of hands in the run.
+     */
+    private static void warnIfCorpusSmall(Simulator simulator, ShoeCorpus corpus, long hands) {
+        long needed = simulator.getShoesNeeded(hands);
+        if (corpus.getShoeCount() >= Simulator.blocks(hands) && corpus.getShoeCount() < needed) {
+            OUT.println("Warning: the run deals about " + needed + " shoes, so some of the corpus's "
+                    + corpus.getShoeCount() + " shoes are dealt twice");
+        }
+    }
+
+    /**
+     * Shares a simulation of a basic strategy player between worker processes
+     * and prints the merged results, which are the same as those of
+     * "simulate" with the same hands, seed and rules.
+     *
+     * @param args the command-line arguments: "coordinate [hands] [seed]
+     *             [workers] [port] [rules]", where workers is the number of
+     *             worker processes to launch on this machine (0 to wait for
+     *             workers started with "work"), port is where workers connect
+     *             and rules are the {@link HouseRules} (or "-" for the
+     *             default).
+     */
+    private static void coordinateSimulation(String[] args) {
+        long hands = args.length > 1 ? Long.parseLong(args[1]) : 10_000_000L;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int localWorkers = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int port = args.length > 4 ? Integer.parseInt(args[4]) : SimulationCoordinator.DEFAULT_PORT;
+        HouseRules rules = args.length > 5 && !"-".equals(args[5]) ? HouseRules.parse(args[5])
+                : HouseRules.DEFAULT;
+
+        Process[] workers = new Process[localWorkers];
+        try {
+            SimulationCoordinator coordinator = new SimulationCoordinator(port, seed, hands);
+            coordinator.setRules(rules);
+            OUT.println("Coordinating " + hands + " hands on port " + coordinator.getPort() + " (seed " + seed
+                    + ", rules " + rules + ", " + localWorkers + " local workers)...");
+            OUT.flush();
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = new ProcessBuilder(new File(new File(System.getProperty("java.home"), "bin"), "java")
+                        .getPath(), "-Dblackjack.metrics=false", "-cp", System.getProperty("java.class.path"),
+                        Main.class.getName(), "work", "localhost", Integer.toString(coordinator.getPort()))
+                        .inheritIO().start();
+            }
+            SimulationResult result = coordinator.run();
+            OUT.println(result.toString());
+            OUT.println(coordinator.getWorkers() + " workers connected, " + coordinator.getReassignedShards()
+                    + " shards reassigned");
+        } catch (IOException e) {
+            OUT.println("Could not coordinate the simulation: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (Process worker : workers) {
+                if (worker != null) {
+                    try {
+                        worker.waitFor();
+                    } catch (InterruptedException e) {
+                        worker.destroy();
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+        OUT.flush();
+    }
+
+    /**
+     * Plays shards of a simulation for a coordinator until it is done.
+     *
+     * @param args the command-line arguments: "work [host] [port]".
+     */
+    private static void runWorker(String[] args) {
+        String host = args.length > 1 ? args[1] : "localhost";
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : SimulationCoordinator.DEFAULT_PORT;
+
+        SimulationWorker worker = new SimulationWorker(new InetSocketAddress(host, port), new BasicStrategy());
+        try {
+            OUT.println("Worker played " + worker.run() + " shards for " + host + ":" + port);
+        } catch (IOException e) {
+            OUT.println("Worker stopped: " + e.getMessage());
+        }
+        OUT.flush();
+    }
+
+    /**
+     * Writes a corpus of pre-shuffled shoes for simulations to deal from.
+     *
+     * @param args the command-line arguments: "corpus &lt;file&gt; [shoes]
+     *             [decks] [seed]".
+     */
+    private static void writeCorpus(String[] args) {
+        File file = new File(args[1]);
+        long shoes = args.length > 2 ? Long.parseLong(args[2]) : 100_000L;
+        int decks = args.length > 3 ? Integer.parseInt(args[3]) : SHOE_DECKS;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        OUT.println("Writing " + shoes + " shoes of " + decks + " decks to " + file + " (seed " + seed + ")...");
+        OUT.flush();
+        long start = System.nanoTime();
+        try {
+            ShoeCorpus.write(file, decks, shoes, seed);
+            OUT.println(String.format("Wrote %d bytes in %.1f s", file.length(),
+                    (System.nanoTime() - start) / 1e9));
+        } catch (IOException e) {
+            OUT.println("Could not write the corpus: " + e.getMessage());
+        }
+        OUT.flush();
+    }
+
+    /**
+     * Generates a basic strategy chart by simulation on every core and prints
+     * it.
+     *
+     * @param args the command-line arguments: "chart [rounds] [seed]", where
+     *             rounds is the most rounds simulated for each cell.
+     */
+    private static void generateChart(String[] args) {
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        OUT.println("Generating a basic strategy chart (up to " + rounds + " rounds per cell, seed "
+                + seed + ")...\n");
+        OUT.flush();
+        StrategyChartGenerator generator = new StrategyChartGenerator(seed, rounds);
+        long start = System.nanoTime();
+        StrategyChart chart = generator.generate();
+        long elapsed = System.nanoTime() - start;
+
+        OUT.print(chart.toString());
+        OUT.printf("%d rounds in %.1f seconds%n", generator.getRoundsPlayed(), elapsed / 1e9);
+        OUT.flush();
+    }
+
+    /**
+     * Opens the registry of player accounts.
+     *
+     * @return the registry, or null if it cannot be opened.
+     */
+    private static PlayerRegistry openRegistry() {
+        try {
+            return new PlayerRegistry(new File(DATA_DIRECTORY, "players"));
+        } catch (IOException e) {
+            OUT.println("Player accounts will not be saved: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Saves the registry's index and closes it.
+     */
+    private static void closeRegistry() {
+        if (Players.REGISTRY != null) {
+            try {
+                Players.REGISTRY.close();
+            } catch (IOException e) {
+                OUT.println("Could not save the player index: " + e.getMessage());
+                OUT.flush();
+            }
+        }
+    }
+
+    /**
+     * Hosts Blackjack tables over the network until the process is stopped.
+     *
+     * @param args the command-line arguments: "server [port] [history]
+     *             [rules]", where history is a directory every round is logged
+     *             to (or "-" for none) and rules are the {@link HouseRules} of
+     *             tables whose players ask for none.
+     */
+    private static void runServer(String[] args) {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        try {
+            GameServer server = new GameServer(port);
+            server.setOutput(OUT);
+            publishMetrics();
+            if (args.length > 3) {
+                server.setRules(HouseRules.parse(args[3]));
+            }
+            if (args.length > 2 && !"-".equals(args[2])) {
+                server.setHistory(new HandHistoryLog(new File(args[2])));
+            }
+            OUT.println("Blackjack server listening on port " + server.getPort());
+            OUT.flush();
+            server.run();
+        } catch (IOException e) {
+            OUT.println("Could not start the server: " + e.getMessage());
+            OUT.flush();
+        }
+    }
+
+    /**
+     * Publishes the game metrics over JMX, so a running simulation or server can
+     * be watched with JConsole, unless -Dblackjack.metrics=false.
+     */
+    private static void publishMetrics() {
+        if (!PUBLISH_METRICS) {
+            return;
+        }
+        try {
+            GameMetrics.register();
+        } catch (JMException e) {
+            OUT.println("Game metrics will not be published: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Connects many simulated clients to a running server and prints how many
+     * hands it settled per second.
+     *
+     * @param args the command-line arguments: "loadtest [clients] [rounds] [host]
+     *             [port]".
+     */
+    private static void runLoadTest(String[] args) {
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        String host = args.length > 3 ? args[3] : "localhost";
+        int port = args.length > 4 ? Integer.parseInt(args[4]) : GameServer.DEFAULT_PORT;
+
+        OUT.println("Playing " + rounds + " rounds with each of " + clients + " clients on "
+                + host + ":" + port + "...");
+        OUT.flush();
+        LoadGenerator generator = new LoadGenerator(new InetSocketAddress(host, port), clients, rounds);
+        try {
+            double handsPerSecond = generator.run();
+            OUT.printf("%d hands settled, %.0f hands/sec%n", generator.getResults(), handsPerSecond);
+        } catch (IOException e) {
+            OUT.println("Load test failed: " + e.getMessage());
+        }
+        OUT.flush();
+    }
+
+    /**
+     * Scans a hand history log and prints how the recorded hands turned out.
+     *
+     * @param directory the directory the log's segments are kept in.
+     */
+    private static void summarizeHistory(File directory) {
+        long rounds = 0;
+        long[] outcomes = new long[Outcome.values().length];
+        long start = System.nanoTime();
+        try (HandHistoryReader reader = new HandHistoryReader(directory)) {
+            HandRecord record;
+            while ((record = reader.next()) != null) {
+                rounds++;
+                for (int seat = 0; seat < record.getSeats(); seat++) {
+                    outcomes[record.getOutcome(seat).ordinal()]++;
+                }
             }
+        } catch (IOException e) {
+            OUT.println("Could not read the hand history: " + e.getMessage());
+            OUT.flush();
+            return;
         }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        OUT.println("Rounds: " + rounds);
+        for (Outcome outcome : Outcome.values()) {
+            OUT.println(outcome + ": " + outcomes[outcome.ordinal()]);
+        }
+        OUT.printf("Scanned %.1f MB in %.2f seconds%n", rounds * HandRecord.SIZE / 1e6, seconds);
+        OUT.flush();
+    }
+
+    /**
+     * Re-plays every round in a hand history log and prints any round that no
+     * longer plays out as recorded. Exits with status 1 if any round diverged,
+     * so it can gate a build.
+     *
+     * @param directory the directory the log's segments are kept in.
+     */
+    private static void replayHistory(File directory) {
+        ReplayEngine.Report report;
+        try {
+            report = new ReplayEngine().replayAll(directory);
+        } catch (IOException e) {
+            OUT.println("Could not read the hand history: " + e.getMessage());
+            OUT.flush();
+            return;
+        }
+        OUT.println(report.toString());
+        OUT.flush();
+        if (report.getDivergent() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the scanner reading the console, created on first use.
+     */
+    public static Scanner scanner() {
+        return Console.SCANNER;
+    }
+
+    /**
+     * @return the manager of the interactive game's players, created with the
+     *         player registry on first use.
+     */
+    private static PlayerManager playerManager() {
+        return Players.MANAGER;
+    }
+
+    /**
+     * Measures how long short simulation jobs take to launch, with and without
+     * a class data sharing archive, and prints the average of each.
+     *
+     * @param args the command-line arguments: "startup [runs] [archive]",
+     *             where archive is the AppCDS archive written by the build.
+     */
+    private static void measureStartup(String[] args) {
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        File archive = args.length > 2 ? new File(args[2]) : null;
+
+        StartupTimer timer = new StartupTimer(runs, "simulate", "1000", "1");
+        OUT.println("Launching a 1000 hand simulation " + runs + " times in each mode...");
+        OUT.flush();
+        try {
+            timer.measure("no class data sharing", "-Xshare:off");
+            timer.measure("default JDK archive");
+            timer.measure("default JDK archive, no JMX", "-Dblackjack.metrics=false");
+            if (archive != null && archive.isFile()) {
+                String shared = "-XX:SharedArchiveFile=" + archive.getPath();
+                timer.measure("application archive", shared);
+                timer.measure("application archive, no JMX", shared, "-Dblackjack.metrics=false");
+            } else {
+                OUT.println("No application archive to measure; build one with \"ant jar\"");
+            }
+            OUT.print(timer.toString());
+        } catch (IOException e) {
+            OUT.println("Could not launch the simulation: " + e.getMessage());
+        }
+        OUT.flush();
     }
 
     /**
@@ -70,36 +601,47 @@ public class Main {
      * If no players have been added, it indicates that instead.
      */
     private static void printPlayers() {
-        if (playerManager.getPlayers().isEmpty()) {
-            System.out.println("\nNo players added yet.\n");
+        if (playerManager().getPlayers().isEmpty()) {
+            OUT.println("\nNo players added yet.\n");
         } else {
-            System.out.println("\nList of Players:");
-            for (BlackjackPlayer player : playerManager.getPlayers()) {
-                System.out.println(" -" + player.getName());
+            OUT.println("\nList of Players:");
+            for (BlackjackPlayer player : playerManager().getPlayers()) {
+                OUT.println(" -" + player.getName());
             }
-            System.out.println();
+            OUT.println();
         }
     }
 
     /**
-     * Clears the terminal or console screen to provide a clean slate for further
-     * interactions.
+     * Holds the console scanner, so standard input is only wrapped the first
+     * time the interactive game reads from it rather than on every launch.
      */
-    public static void clearScreen() {
-        for (int i = 0; i < 100; i++) {
-            System.out.println();
-        }
+    private static final class Console {
+
+        /** A scanner object to handle user input throughout the application. */
+        static final Scanner SCANNER = new Scanner(System.in);
     }
 
-//    public static void clearScreen() {
-//        try {
-//            if (System.getProperty("os.name").contains("Windows")) {
-//                new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
-//            } else {
-//                System.out.print("\033[H\033[2J");
-//            }
-//        } catch (Exception e) {
-//            e.printStackTrace();
-//        }
-//    }
+    /**
+     * Holds the player registry and manager, so the registry is only opened
+     * when the interactive game starts rather than in every mode.
+     */
+    private static final class Players {
+
+        /** Every registered player, kept between sessions; null if it cannot be opened. */
+        static final PlayerRegistry REGISTRY = openRegistry();
+
+        /** Player manager to manage players and their respective operations. */
+        static final PlayerManager MANAGER = new PlayerManager(OUT, REGISTRY);
+    }
+
+    /**
+     * Holds the interactive game's shoe, so it is only built when the first
+     * interactive game is played.
+     */
+    private static final class Table {
+
+        /** The shoe used by every game, kept between games until the cut card comes out. */
+        static final BlackjackDeck SHOE = new BlackjackDeck(SHOE_DECKS, BlackjackDeck.DEFAULT_PENETRATION);
+    }
 }
@@ -0,0 +1,39 @@
+package ca.sheridancollege.project;
+
+/**
+ * Discards all output, for simulations and benchmarks.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public final class NullSink implements OutputSink {
+
+    /** The only instance, since a sink that discards everything has no state. */
+    public static final NullSink INSTANCE = new NullSink();
+
+    private NullSink() {
+    }
+
+    @Override
+    public void print(String text) {
+    }
+
+    @Override
+    public void println(String text) {
+    }
+
+    @Override
+    public void println() {
+    }
+
+    @Override
+    public void printf(String format, Object... args) {
+    }
+
+    @Override
+    public void clearScreen() {
+    }
+
+    @Override
+    public void flush() {
+    }
+}
@@ -0,0 +1,49 @@
+package ca.sheridancollege.project;
+
+/**
+ * Represents the result of a player's hand against the dealer.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public enum Outcome {
+
+    /** The player beat the dealer. */
+    WIN(1, 1),
+
+    /** The dealer beat the player. */
+    LOSS(-1, 1),
+
+    /** The player and the dealer tied. */
+    PUSH(0, 1),
+
+    /** The player was dealt a Blackjack and the dealer was not; pays 3:2. */
+    BLACKJACK(3, 2);
+
+    // Amount won or lost for a bet, as a fraction of the bet
+    private final int numerator;
+    private final int denominator;
+
+    Outcome(int numerator, int denominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    /**
+     * @return the units won (positive) or lost (negative) for a one unit bet.
+     */
+    public double getPayout() {
+        return (double) numerator / denominator;
+    }
+
+    /**
+     * Works out the amount won or lost on a bet, in the bet's own units. An odd
+     * Blackjack payout is rounded down to a whole unit, the way a table pays
+     * out to the smallest chip.
+     *
+     * @param stake the amount bet.
+     * @return the amount won (positive) or lost (negative).
+     */
+    public long settle(long stake) {
+        return Math.floorDiv(stake * numerator, denominator);
+    }
+}
@@ -0,0 +1,57 @@
+package ca.sheridancollege.project;
+
+/**
+ * Receives everything the game shows to the user. Rendering through a sink
+ * instead of System.out lets the console batch its writes into frames, lets
+ * simulations and benchmarks discard output entirely, and lets tests capture
+ * it.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public interface OutputSink {
+
+    /**
+     * Adds text to the current frame.
+     *
+     * @param text the text to show.
+     */
+    void print(String text);
+
+    /**
+     * Adds a line of text to the current frame.
+     *
+     * @param text the text to show, without the line separator.
+     */
+    default void println(String text) {
+        print(text);
+        println();
+    }
+
+    /**
+     * Ends the current line.
+     */
+    default void println() {
+        print(System.lineSeparator());
+    }
+
+    /**
+     * Adds formatted text to the current frame.
+     *
+     * @param format the format string, see {@link String#format(String, Object...)}.
+     * @param args   the arguments referenced by the format.
+     */
+    default void printf(String format, Object... args) {
+        print(String.format(format, args));
+    }
+
+    /**
+     * Clears the screen, so the next frame starts on a blank screen.
+     */
+    void clearScreen();
+
+    /**
+     * Shows the current frame. Called before waiting for input and when a run
+     * finishes.
+     */
+    void flush();
+}
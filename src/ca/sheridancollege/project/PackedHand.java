@@ -0,0 +1,183 @@
+package ca.sheridancollege.project;
+
+/**
+ * Scores a Blackjack hand packed into a single int, so adding a card is a
+ * couple of table lookups instead of walking the whole hand.
+ *
+ * <p>
+ * Layout of a packed hand:
+ * <ul>
+ * <li>bits 0-4: hard total, counting every Ace as 1 (stops at 31)</li>
+ * <li>bit 5: set if an Ace can still be counted as 11</li>
+ * <li>bits 6-10: number of cards</li>
+ * <li>bits 11-15: number of Aces that can be counted as 11</li>
+ * </ul>
+ * The low six bits are the scoring state used to index the lookup tables.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public final class PackedHand {
+
+    /** A hand with no cards. */
+    public static final int EMPTY = 0;
+
+    // Mask of the scoring state (hard total and Ace flag)
+    private static final int STATE_MASK = 0x3F;
+
+    /** Number of scoring states, see {@link #state(int)}. */
+    public static final int STATES = STATE_MASK + 1;
+
+    // Bit set in the scoring state when the hand holds an Ace
+    private static final int ACE_FLAG = 0x20;
+
+    // Largest hard total that is tracked; anything above is already busted
+    private static final int MAX_HARD = 31;
+
+    // Position and unit of the card count
+    private static final int COUNT_SHIFT = 6;
+    private static final int COUNT_MASK = 0x1F;
+
+    // Position and unit of the Ace count
+    private static final int ACES_SHIFT = 11;
+    private static final int ACES_MASK = 0x1F;
+
+    /** Points for each card value (1-13), counting an Ace as 1. */
+    private static final int[] POINTS = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 10, 10, 10 };
+
+    // Next scoring state, indexed by (state * 16 + points)
+    private static final byte[] NEXT = new byte[STATES * 16];
+
+    // Score of each scoring state, with an Ace counted as 11 when it fits
+    private static final byte[] SCORE = new byte[STATES];
+
+    // Whether the score of each scoring state counts an Ace as 11
+    private static final boolean[] SOFT = new boolean[STATES];
+
+    static {
+        for (int state = 0; state < STATES; state++) {
+            int hard = state & MAX_HARD;
+            boolean hasAce = (state & ACE_FLAG) != 0;
+
+            for (int points = 1; points <= 10; points++) {
+                int next = Math.min(hard + points, MAX_HARD);
+                if (hasAce || points == 1) {
+                    next |= ACE_FLAG;
+                }
+                NEXT[state * 16 + points] = (byte) next;
+            }
+
+            SOFT[state] = hasAce && hard + 10 <= 21;
+            SCORE[state] = (byte) (SOFT[state] ? hard + 10 : hard);
+        }
+    }
+
+    private PackedHand() {
+    }
+
+    /**
+     * Adds a card to a hand.
+     *
+     * @param hand  the packed hand.
+     * @param value the numeric value of the card (1-13).
+     * @return the packed hand with the card added.
+     */
+    public static int add(int hand, int value) {
+        int points = POINTS[value];
+        int next = (hand & ~STATE_MASK) | NEXT[(hand & STATE_MASK) * 16 + points];
+        next += 1 << COUNT_SHIFT;
+        if (points == 1) {
+            next += 1 << ACES_SHIFT;
+        }
+        return next;
+    }
+
+    /**
+     * Stops one Ace in the hand from ever counting as 11, for a player who chose
+     * to value it as 1.
+     *
+     * @param hand the packed hand.
+     * @return the packed hand with one less Ace that can count as 11.
+     */
+    public static int countAceAsOne(int hand) {
+        int aces = aceCount(hand);
+        if (aces == 0) {
+            return hand;
+        }
+        hand -= 1 << ACES_SHIFT;
+        if (aces == 1) {
+            hand &= ~ACE_FLAG;
+        }
+        return hand;
+    }
+
+    /**
+     * Builds a packed hand from a list of cards.
+     *
+     * @param cards the cards in the hand.
+     * @return the packed hand.
+     */
+    public static int of(Iterable<BlackjackCard> cards) {
+        int hand = EMPTY;
+        for (BlackjackCard card : cards) {
+            hand = add(hand, card.getValue());
+        }
+        return hand;
+    }
+
+    /**
+     * @param value the numeric value of a card (1-13).
+     * @return the points of the card, counting an Ace as 1.
+     */
+    public static int points(int value) {
+        return POINTS[value];
+    }
+
+    /**
+     * @param hand the packed hand.
+     * @return the score of the hand, with an Ace counted as 11 when it fits.
+     */
+    public static int score(int hand) {
+        return SCORE[hand & STATE_MASK];
+    }
+
+    /**
+     * @param hand the packed hand.
+     * @return true if the score counts an Ace as 11.
+     */
+    public static boolean isSoft(int hand) {
+        return SOFT[hand & STATE_MASK];
+    }
+
+    /**
+     * @param hand the packed hand.
+     * @return the hand's scoring state, a number below {@link #STATES} that
+     *         decides its score and how it scores after any card is added.
+     */
+    public static int state(int hand) {
+        return hand & STATE_MASK;
+    }
+
+    /**
+     * @param hand the packed hand.
+     * @return the total counting every Ace as 1.
+     */
+    public static int hardTotal(int hand) {
+        return hand & MAX_HARD;
+    }
+
+    /**
+     * @param hand the packed hand.
+     * @return the number of cards in the hand.
+     */
+    public static int cardCount(int hand) {
+        return (hand >>> COUNT_SHIFT) & COUNT_MASK;
+    }
+
+    /**
+     * @param hand the packed hand.
+     * @return the number of Aces in the hand that can still count as 11.
+     */
+    public static int aceCount(int hand) {
+        return (hand >>> ACES_SHIFT) & ACES_MASK;
+    }
+}
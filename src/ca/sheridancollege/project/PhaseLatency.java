@@ -0,0 +1,53 @@
+package ca.sheridancollege.project;
+
+/**
+ * Publishes the latencies of one {@link GameMetrics.Phase} over JMX. Every
+ * attribute is read from a fresh merge of all threads' histograms, so values
+ * are only as precise as a {@link LatencyHistogram} bucket.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class PhaseLatency implements PhaseLatencyMBean {
+
+    // The phase published
+    private final GameMetrics.Phase phase;
+
+    /**
+     * Constructs a new view of a phase's latencies.
+     *
+     * @param phase the phase.
+     */
+    public PhaseLatency(GameMetrics.Phase phase) {
+        this.phase = phase;
+    }
+
+    @Override
+    public long getCount() {
+        return LatencyHistogram.count(GameMetrics.snapshot(phase));
+    }
+
+    @Override
+    public double getMeanNanos() {
+        return LatencyHistogram.mean(GameMetrics.snapshot(phase));
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return LatencyHistogram.percentile(GameMetrics.snapshot(phase), 50);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return LatencyHistogram.percentile(GameMetrics.snapshot(phase), 99);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return LatencyHistogram.percentile(GameMetrics.snapshot(phase), 99.9);
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return LatencyHistogram.percentile(GameMetrics.snapshot(phase), 100);
+    }
+}
@@ -0,0 +1,40 @@
+package ca.sheridancollege.project;
+
+/**
+ * The JMX view of {@link PhaseLatency}: how long one phase of a round takes,
+ * in nanoseconds, over the rounds that were timed.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public interface PhaseLatencyMBean {
+
+    /**
+     * @return the number of times the phase was timed.
+     */
+    long getCount();
+
+    /**
+     * @return the mean time the phase took.
+     */
+    double getMeanNanos();
+
+    /**
+     * @return the median time the phase took.
+     */
+    long getP50Nanos();
+
+    /**
+     * @return the 99th percentile of the time the phase took.
+     */
+    long getP99Nanos();
+
+    /**
+     * @return the 99.9th percentile of the time the phase took.
+     */
+    long getP999Nanos();
+
+    /**
+     * @return the longest time the phase took.
+     */
+    long getMaxNanos();
+}
@@ -0,0 +1,89 @@
+package ca.sheridancollege.project;
+
+/**
+ * A registered player, kept by the {@link PlayerRegistry} between sessions.
+ * An account is separate from a {@link BlackjackPlayer}, which is only the
+ * player's seat and hand at a table.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class PlayerAccount {
+
+    // The account's number, which is also its position in the registry's file
+    private final int id;
+
+    // The player's unique name
+    private final String name;
+
+    // When the account was created, in milliseconds since the epoch
+    private final long created;
+
+    // Hands played over the account's lifetime
+    private long handsPlayed;
+
+    // Units won (positive) or lost (negative) over the account's lifetime
+    private double netUnits;
+
+    /**
+     * Constructs an account as stored in the registry.
+     *
+     * @param id          the account's number.
+     * @param name        the player's unique name.
+     * @param created     when the account was created.
+     * @param handsPlayed the hands played so far.
+     * @param netUnits    the units won or lost so far.
+     */
+    PlayerAccount(int id, String name, long created, long handsPlayed, double netUnits) {
+        this.id = id;
+        this.name = name;
+        this.created = created;
+        this.handsPlayed = handsPlayed;
+        this.netUnits = netUnits;
+    }
+
+    /**
+     * Records the result of one hand. Call {@link PlayerRegistry#save} to keep it.
+     *
+     * @param outcome the outcome of the hand.
+     * @param units   the number of units bet on the hand.
+     */
+    public void record(Outcome outcome, int units) {
+        handsPlayed++;
+        netUnits += outcome.getPayout() * units;
+    }
+
+    /**
+     * @return the account's number.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the player's unique name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return when the account was created, in milliseconds since the epoch.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return the hands played over the account's lifetime.
+     */
+    public long getHandsPlayed() {
+        return handsPlayed;
+    }
+
+    /**
+     * @return the units won or lost over the account's lifetime.
+     */
+    public double getNetUnits() {
+        return netUnits;
+    }
+}
@@ -1,10 +1,16 @@
 package ca.sheridancollege.project;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Manages the players for a game of Blackjack. Ensures unique player names
- * and enforces a maximum number of players.
+ * and enforces a maximum number of players. The maximum is the number of seats
+ * at the table; it does not limit how many accounts the {@link PlayerRegistry}
+ * holds. When a registry is given, each seated player is matched to their
+ * account so returning players are recognized and their results are kept.
  * 
  * @author Yonathan Camacho, 2023
  */
@@ -13,14 +19,47 @@ public class PlayerManager {
     /** List of players participating in the game. */
     private final ArrayList<BlackjackPlayer> players;
 
-    /** Maximum number of players allowed in a game. */
+    /** Where messages about the players are shown. */
+    private final OutputSink output;
+
+    /** Maximum number of players allowed in a game: the seats at the table. */
     private static final int MAX_PLAYERS = 4; // Can change this based on your requirements.
 
+    /** The registry players' accounts are kept in, or null to keep none. */
+    private final PlayerRegistry registry;
+
+    /** The account of each seated player, by name. */
+    private final Map<String, PlayerAccount> accounts = new HashMap<>();
+
     /**
      * Constructs a new PlayerManager with an empty list of players.
      */
     public PlayerManager() {
+        this(TerminalSink.STDOUT);
+    }
+
+    /**
+     * Constructs a new PlayerManager with an empty list of players that shows its
+     * messages on the given sink.
+     *
+     * @param output where messages about the players are shown.
+     */
+    public PlayerManager(OutputSink output) {
+        this(output, null);
+    }
+
+    /**
+     * Constructs a new PlayerManager with an empty list of players whose
+     * accounts are kept in a registry.
+     *
+     * @param output   where messages about the players are shown.
+     * @param registry the registry players' accounts are kept in, or null to
+     *                 keep none.
+     */
+    public PlayerManager(OutputSink output, PlayerRegistry registry) {
         this.players = new ArrayList<>();
+        this.output = output;
+        this.registry = registry;
     }
 
     /**
@@ -31,13 +70,29 @@ public class PlayerManager {
      */
     public boolean addPlayer(String name) {
         if (players.size() >= MAX_PLAYERS) {
-            System.out.println("Maximum number of players reached!");
+            output.println("Maximum number of players reached!");
             return false;
         }
 
         for (BlackjackPlayer player : players) {
             if (player.getName().equals(name)) {
-                System.out.println("Player name already exists!");
+                output.println("Player name already exists!");
+                return false;
+            }
+        }
+
+        if (registry != null) {
+            try {
+                PlayerAccount account = registry.find(name);
+                if (account == null) {
+                    account = registry.register(name);
+                } else {
+                    output.println("Welcome back, " + name + "! " + account.getHandsPlayed()
+                            + " hands played, " + String.format("%.1f", account.getNetUnits()) + " units won.");
+                }
+                accounts.put(name, account);
+            } catch (IOException | IllegalArgumentException e) {
+                output.println("Could not load the account: " + e.getMessage());
                 return false;
             }
         }
@@ -46,6 +101,28 @@ public class PlayerManager {
         return true;
     }
 
+    /**
+     * Adds the results of a game to every seated player's account.
+     *
+     * @param outcomes the outcome of each player's hand, in the same order as the
+     *                 players.
+     */
+    public void recordResults(Outcome[] outcomes) {
+        if (registry == null) {
+            return;
+        }
+        for (int i = 0; i < players.size(); i++) {
+            BlackjackPlayer player = players.get(i);
+            PlayerAccount account = accounts.get(player.getName());
+            account.record(outcomes[i], player.getBetUnits());
+            try {
+                registry.save(account);
+            } catch (IOException e) {
+                output.println("Could not save " + player.getName() + "'s account: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Checks if the game can be started based on the number of players.
      * 
@@ -53,7 +130,7 @@ public class PlayerManager {
      */
     public boolean startGame() {
         if (players.size() < 1) {
-            System.out.println("At least one player needs to be added to start the game!");
+            output.println("At least one player needs to be added to start the game!");
             return false;
         }
 
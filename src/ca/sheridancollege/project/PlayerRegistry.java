@@ -0,0 +1,338 @@
+package ca.sheridancollege.project;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps every registered {@link PlayerAccount} on disk, so players are
+ * remembered between sessions. It is built to hold hundreds of thousands of
+ * accounts with O(1) lookups by id or by name.
+ *
+ * <p>
+ * Accounts are stored in a data file as fixed-size records, with an account's
+ * id as its record number, so looking up an id is a single positioned read.
+ * Names are found through an open-addressing hash table of longs, each holding
+ * a name's hash and the account id. The table is saved to an index file on
+ * {@link #close()} and read back in one bulk read at startup, so opening the
+ * registry never parses the data file. Accounts added after the index was last
+ * saved, for example before a crash, are indexed from the data file on open.
+ *
+ * <p>
+ * Record layout, in big-endian byte order:
+ *
+ * <pre>
+ * offset size field
+ *      0    4 id
+ *      4    1 length of the name in bytes
+ *      5   35 name, UTF-8
+ *     40    8 created, milliseconds since the epoch
+ *     48    8 hands played
+ *     56    8 net units won, as a double
+ * </pre>
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class PlayerRegistry implements Closeable {
+
+    /** Size of an account record in bytes. */
+    public static final int RECORD_SIZE = 64;
+
+    /** Longest name allowed, in UTF-8 bytes. */
+    public static final int MAX_NAME_BYTES = 35;
+
+    // Identifies an index file
+    private static final int INDEX_MAGIC = 0x424a5058;
+
+    // Size of the index file's header: magic, indexed accounts, capacity
+    private static final int INDEX_HEADER = 12;
+
+    // Smallest hash table
+    private static final int MIN_CAPACITY = 1024;
+
+    // Field offsets
+    private static final int NAME_LENGTH = 4;
+    private static final int NAME = 5;
+    private static final int CREATED = 40;
+    private static final int HANDS_PLAYED = 48;
+    private static final int NET_UNITS = 56;
+
+    // The data and index files
+    private final RandomAccessFile dataFile;
+    private final FileChannel data;
+    private final File indexFile;
+
+    // The hash table: each slot is hash << 32 | (id + 1), or 0 if empty
+    private long[] slots;
+
+    // Number of accounts
+    private int count;
+
+    // Accounts read or created this session, by id
+    private final Map<Integer, PlayerAccount> loaded = new HashMap<>();
+
+    // Buffer for reading and writing one record
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    /**
+     * Opens the registry kept in a directory, creating it if needed.
+     *
+     * @param directory the directory the registry's files are kept in.
+     * @throws IOException if the files cannot be opened.
+     */
+    public PlayerRegistry(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        dataFile = new RandomAccessFile(new File(directory, "players.dat"), "rw");
+        data = dataFile.getChannel();
+        indexFile = new File(directory, "players.idx");
+        count = (int) (data.size() / RECORD_SIZE);
+
+        int indexed = loadIndex();
+        for (int id = indexed; id < count; id++) {
+            insert(hash(read(id).getName()), id);
+        }
+    }
+
+    /**
+     * Creates an account.
+     *
+     * @param name the player's name, at most {@link #MAX_NAME_BYTES} bytes of
+     *             UTF-8.
+     * @return the new account, or null if the name is already taken.
+     * @throws IOException if the account cannot be written.
+     */
+    public synchronized PlayerAccount register(String name) throws IOException {
+        if (name.isEmpty() || name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("A name must be 1 to " + MAX_NAME_BYTES + " bytes long: " + name);
+        }
+        if (find(name) != null) {
+            return null;
+        }
+
+        PlayerAccount account = new PlayerAccount(count, name, System.currentTimeMillis(), 0, 0);
+        write(account);
+        count++;
+        insert(hash(name), account.getId());
+        loaded.put(account.getId(), account);
+        return account;
+    }
+
+    /**
+     * Finds an account by name.
+     *
+     * @param name the player's name.
+     * @return the account, or null if there is none with that name.
+     * @throws IOException if the account cannot be read.
+     */
+    public synchronized PlayerAccount find(String name) throws IOException {
+        int hash = hash(name);
+        int mask = slots.length - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            long slot = slots[i];
+            if (slot == 0) {
+                return null;
+            }
+            if ((int) (slot >>> 32) == hash) {
+                PlayerAccount account = get((int) slot - 1);
+                if (account.getName().equals(name)) {
+                    return account;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets an account by id.
+     *
+     * @param id the account's number.
+     * @return the account.
+     * @throws IOException if the account cannot be read.
+     */
+    public synchronized PlayerAccount get(int id) throws IOException {
+        if (id < 0 || id >= count) {
+            throw new IllegalArgumentException("No account with id " + id);
+        }
+        PlayerAccount account = loaded.get(id);
+        if (account == null) {
+            account = read(id);
+            loaded.put(id, account);
+        }
+        return account;
+    }
+
+    /**
+     * Writes an account's statistics back to disk.
+     *
+     * @param account the account.
+     * @throws IOException if the account cannot be written.
+     */
+    public synchronized void save(PlayerAccount account) throws IOException {
+        write(account);
+    }
+
+    /**
+     * @return the number of accounts.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Saves the index and closes the files.
+     *
+     * @throws IOException if the index cannot be saved.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        File temporary = new File(indexFile.getPath() + ".tmp");
+        try (RandomAccessFile file = new RandomAccessFile(temporary, "rw")) {
+            file.setLength(0);
+            ByteBuffer buffer = ByteBuffer.allocate(INDEX_HEADER + slots.length * 8);
+            buffer.putInt(INDEX_MAGIC).putInt(count).putInt(slots.length);
+            buffer.asLongBuffer().put(slots);
+            buffer.rewind();
+            while (buffer.hasRemaining()) {
+                file.getChannel().write(buffer);
+            }
+        }
+        // Replace the old index only once the new one is complete
+        if (!temporary.renameTo(indexFile) && !(indexFile.delete() && temporary.renameTo(indexFile))) {
+            throw new IOException("Cannot replace " + indexFile);
+        }
+        dataFile.close();
+    }
+
+    /**
+     * Reads the index file into the hash table, or starts an empty table if
+     * there is no usable index.
+     *
+     * @return the number of accounts the loaded index covers.
+     * @throws IOException if the index cannot be read.
+     */
+    private int loadIndex() throws IOException {
+        if (indexFile.length() >= INDEX_HEADER) {
+            try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+                ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+                file.getChannel().read(header, 0);
+                header.flip();
+                int magic = header.getInt();
+                int indexed = header.getInt();
+                int capacity = header.getInt();
+                if (magic == INDEX_MAGIC && indexed <= count && Integer.bitCount(capacity) == 1
+                        && file.length() == INDEX_HEADER + capacity * 8L) {
+                    ByteBuffer table = ByteBuffer.allocate(capacity * 8);
+                    while (table.hasRemaining()) {
+                        if (file.getChannel().read(table, INDEX_HEADER + table.position()) < 0) {
+                            throw new IOException("The index ended early: " + indexFile);
+                        }
+                    }
+                    table.flip();
+                    slots = new long[capacity];
+                    table.asLongBuffer().get(slots);
+                    return indexed;
+                }
+            }
+        }
+        slots = new long[capacity(count)];
+        return 0;
+    }
+
+    /**
+     * Adds an account to the hash table, doubling the table when it is half
+     * full.
+     *
+     * @param hash the hash of the account's name.
+     * @param id   the account's number.
+     */
+    private void insert(int hash, int id) {
+        if (count * 2 > slots.length) {
+            long[] old = slots;
+            slots = new long[capacity(count * 2)];
+            for (long slot : old) {
+                if (slot != 0) {
+                    place(slot);
+                }
+            }
+        }
+        place((long) hash << 32 | (id + 1L));
+    }
+
+    /**
+     * Puts a slot value in the first free slot for its hash.
+     *
+     * @param slot the slot value.
+     */
+    private void place(long slot) {
+        int mask = slots.length - 1;
+        int i = (int) (slot >>> 32) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = slot;
+    }
+
+    /**
+     * Reads an account's record.
+     *
+     * @param id the account's number.
+     * @return the account.
+     * @throws IOException if the record cannot be read.
+     */
+    private PlayerAccount read(int id) throws IOException {
+        record.clear();
+        data.read(record, (long) id * RECORD_SIZE);
+        int length = record.get(NAME_LENGTH);
+        String name = new String(record.array(), NAME, length, StandardCharsets.UTF_8);
+        return new PlayerAccount(id, name, record.getLong(CREATED), record.getLong(HANDS_PLAYED),
+                record.getDouble(NET_UNITS));
+    }
+
+    /**
+     * Writes an account's record.
+     *
+     * @param account the account.
+     * @throws IOException if the record cannot be written.
+     */
+    private void write(PlayerAccount account) throws IOException {
+        byte[] name = account.getName().getBytes(StandardCharsets.UTF_8);
+        record.clear();
+        record.putInt(account.getId());
+        record.put((byte) name.length);
+        record.put(name);
+        record.position(CREATED);
+        record.putLong(account.getCreated());
+        record.putLong(account.getHandsPlayed());
+        record.putDouble(account.getNetUnits());
+        record.flip();
+        data.write(record, (long) account.getId() * RECORD_SIZE);
+    }
+
+    /**
+     * @param name a name.
+     * @return the name's hash, spread so nearby hash codes land far apart.
+     */
+    private static int hash(String name) {
+        int h = name.hashCode() * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @param accounts a number of accounts.
+     * @return a power of two table size that keeps the table at most half full.
+     */
+    private static int capacity(int accounts) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < accounts * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,21 @@
+package ca.sheridancollege.project;
+
+/**
+ * Decides how a player plays their hand without asking anyone at the console.
+ * Players given a strategy can be played headlessly, for example by the
+ * {@link Simulator}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public interface PlayerStrategy {
+
+    /**
+     * Chooses the next decision for the player's current hand.
+     *
+     * @param player       the player whose turn it is.
+     * @param dealerUpcard the point value of the dealer's visible card (1 for an
+     *                     Ace, 10 for face cards).
+     * @return the decision to make.
+     */
+    Decision decide(BlackjackPlayer player, int dealerUpcard);
+}
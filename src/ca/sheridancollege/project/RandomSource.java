@@ -0,0 +1,85 @@
+package ca.sheridancollege.project;
+
+import java.util.SplittableRandom;
+
+/**
+ * A source of random numbers used to shuffle cards. Implementations are not
+ * thread safe; each thread should use its own source, either from
+ * {@link #forCurrentThread()} or by splitting a seeded source with
+ * {@link #split(long)}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public interface RandomSource {
+
+    /**
+     * @param bound the upper bound (exclusive), must be positive.
+     * @return a uniformly distributed int between 0 (inclusive) and bound
+     *         (exclusive).
+     */
+    int nextInt(int bound);
+
+    /**
+     * @return a uniformly distributed long.
+     */
+    long nextLong();
+
+    /**
+     * Creates an independent generator for a numbered stream, such as a worker
+     * thread or a block of simulated hands. The result depends only on this
+     * source's seed and the stream number, not on how many numbers have been
+     * drawn, so parallel runs are reproducible no matter how work is scheduled.
+     *
+     * @param stream the number of the stream.
+     * @return a new generator of the same kind for that stream.
+     */
+    RandomSource split(long stream);
+
+    /**
+     * Gets a generator owned by the current thread, so threads never contend on
+     * a shared generator.
+     *
+     * @return the current thread's generator.
+     */
+    static RandomSource forCurrentThread() {
+        return ThreadSources.LOCAL.get();
+    }
+
+    /**
+     * Mixes a seed with a stream number into a well distributed seed (SplitMix64
+     * finalizer).
+     *
+     * @param seed   the seed.
+     * @param stream the stream number.
+     * @return the mixed seed.
+     */
+    static long mix(long seed, long stream) {
+        long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Holds the per-thread generators. Each one is split from a shared root once,
+     * when the thread first shuffles.
+     */
+    final class ThreadSources {
+
+        // Root generator the per-thread generators are split from
+        private static final SplittableRandom ROOT = new SplittableRandom();
+
+        // The generator of each thread
+        private static final ThreadLocal<RandomSource> LOCAL = new ThreadLocal<RandomSource>() {
+            @Override
+            protected RandomSource initialValue() {
+                synchronized (ROOT) {
+                    return new SplittableRandomSource(ROOT.nextLong());
+                }
+            }
+        };
+
+        private ThreadSources() {
+        }
+    }
+}
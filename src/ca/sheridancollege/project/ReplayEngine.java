@@ -0,0 +1,275 @@
+package ca.sheridancollege.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-plays rounds from a {@link HandHistoryLog} through {@link BlackjackGame}
+ * and checks that the engine still produces the same cards, scores and
+ * outcomes. A round is fully determined by its shuffle seed, its position in
+ * the shoe and the stream of decisions, so nothing else has to be recorded.
+ * Run it over a large log after every engine change as a regression check.
+ *
+ * <p>
+ * Replay is headless and allocation-free per round. Consecutive rounds from
+ * the same shoe share a seed, so the shoe is only shuffled again when the seed
+ * changes.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class ReplayEngine {
+
+    /** Largest number of divergences described in a report. */
+    public static final int MAX_REPORTED = 10;
+
+    // One game and shoe per number of decks, created when first needed
+    private final BlackjackGame[] games = new BlackjackGame[BlackjackDeck.MAX_DECKS + 1];
+
+    // The seats of the round being replayed, shared by every game
+    private final List<BlackjackPlayer> players = new ArrayList<>();
+
+    // Every seat a record can hold
+    private final BlackjackPlayer[] seats = new BlackjackPlayer[HandRecord.MAX_SEATS];
+
+    // The seed each game's shoe was last shuffled with
+    private final long[] shuffledSeeds = new long[BlackjackDeck.MAX_DECKS + 1];
+    private final boolean[] shuffled = new boolean[BlackjackDeck.MAX_DECKS + 1];
+
+    // Describes the last divergence found
+    private String divergence;
+
+    /**
+     * Constructs a new replay engine.
+     */
+    public ReplayEngine() {
+        for (int i = 0; i < seats.length; i++) {
+            seats[i] = new BlackjackPlayer("Seat " + (i + 1));
+        }
+    }
+
+    /**
+     * Re-plays one round and compares it to the record.
+     *
+     * @param record the recorded round.
+     * @return true if the round played out exactly as recorded.
+     */
+    public boolean replay(HandRecord record) {
+        divergence = null;
+        BlackjackGame game = game(record.getDecks());
+        BlackjackDeck deck = game.getDeck();
+        if (!shuffled[record.getDecks()] || shuffledSeeds[record.getDecks()] != record.getSeed()) {
+            deck.shuffle(record.getSeed());
+            shuffledSeeds[record.getDecks()] = record.getSeed();
+            shuffled[record.getDecks()] = true;
+        }
+        deck.setPosition(record.getShoeOffset());
+
+        players.clear();
+        for (int seat = 0; seat < record.getSeats(); seat++) {
+            players.add(seats[seat]);
+        }
+
+        game.setRules(record.getRules());
+        game.startRound();
+        for (int i = 0; i < record.getDecisionCount(); i++) {
+            if (game.getState() != RoundState.PLAYER_TURN) {
+                return diverge(record, "the round ended before decision " + i);
+            }
+            int seat = players.indexOf(game.getCurrentPlayer());
+            if (seat != record.getDecisionSeat(i)) {
+                return diverge(record, "decision " + i + " was made by seat " + record.getDecisionSeat(i)
+                        + " but it is seat " + seat + "'s turn");
+            }
+            if (record.isRevealed(seat)) {
+                game.getCurrentPlayer().revealHiddenCard();
+            }
+            try {
+                game.decide(record.getDecision(i));
+            } catch (IllegalArgumentException e) {
+                return diverge(record, "decision " + i + " was rejected: " + e.getMessage());
+            }
+        }
+        if (game.getState() != RoundState.SETTLED) {
+            return diverge(record, "the round is still waiting for a decision");
+        }
+
+        Outcome[] outcomes = game.getOutcomes();
+        for (int seat = 0; seat < record.getSeats(); seat++) {
+            if (!sameHand(record, seat, seats[seat])) {
+                return false;
+            }
+            if (outcomes[seat] != record.getOutcome(seat)) {
+                return diverge(record, "seat " + seat + " was " + outcomes[seat] + " but was recorded as "
+                        + record.getOutcome(seat));
+            }
+        }
+        return sameHand(record, HandRecord.MAX_SEATS, game.getDealer());
+    }
+
+    /**
+     * Re-plays every round in a log. Rounds that cannot be re-played from their
+     * seed, because they were cut short or dealt across a reshuffle, are
+     * skipped.
+     *
+     * @param directory the directory the log's segments are kept in.
+     * @return a summary of the replay.
+     * @throws IOException if the log cannot be read.
+     */
+    public Report replayAll(File directory) throws IOException {
+        Report report = new Report();
+        long start = System.nanoTime();
+        try (HandHistoryReader reader = new HandHistoryReader(directory)) {
+            HandRecord record;
+            while ((record = reader.next()) != null) {
+                if (record.isTruncated() || record.isReshuffled()) {
+                    report.skipped++;
+                    continue;
+                }
+                report.rounds++;
+                if (!replay(record)) {
+                    report.divergent++;
+                    if (report.divergences.size() < MAX_REPORTED) {
+                        report.divergences.add(divergence);
+                    }
+                }
+            }
+        }
+        for (BlackjackGame game : games) {
+            if (game != null) {
+                game.flushMetrics();
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * @return a description of the last divergence found, or null if the last
+     *         round matched.
+     */
+    public String getDivergence() {
+        return divergence;
+    }
+
+    /**
+     * Compares a replayed hand's cards and score with the record.
+     *
+     * @param record the recorded round.
+     * @param hand   a seat, or {@link HandRecord#MAX_SEATS} for the dealer.
+     * @param player the replayed hand.
+     * @return true if the hand matches.
+     */
+    private boolean sameHand(HandRecord record, int hand, BlackjackPlayer player) {
+        String name = hand == HandRecord.MAX_SEATS ? "the dealer" : "seat " + hand;
+        int offset = player.getHiddenCard() != null ? 1 : 0;
+        int size = player.getHand().size() + offset;
+        if (size != record.getHandSize(hand)) {
+            return diverge(record, name + " has " + size + " cards but " + record.getHandSize(hand)
+                    + " were recorded");
+        }
+        for (int i = 0; i < size; i++) {
+            BlackjackCard card = i < offset ? player.getHiddenCard() : player.getHand().get(i - offset);
+            if (card != record.getCard(hand, i)) {
+                return diverge(record, name + " card " + i + " is " + card + " but was recorded as "
+                        + record.getCard(hand, i));
+            }
+        }
+        if (player.getScore() != record.getScore(hand)) {
+            return diverge(record, name + " scored " + player.getScore() + " but was recorded as "
+                    + record.getScore(hand));
+        }
+        return true;
+    }
+
+    /**
+     * Notes a divergence.
+     *
+     * @param record  the recorded round.
+     * @param message what differed.
+     * @return false, so callers can return the result directly.
+     */
+    private boolean diverge(HandRecord record, String message) {
+        divergence = "table " + record.getTable() + " round " + record.getRoundId() + ": " + message;
+        return false;
+    }
+
+    /**
+     * @param decks a number of decks.
+     * @return the game whose shoe has that many decks.
+     */
+    private BlackjackGame game(int decks) {
+        if (games[decks] == null) {
+            games[decks] = new BlackjackGame("Replay", players,
+                    new BlackjackDeck(decks, BlackjackDeck.DEFAULT_PENETRATION));
+            games[decks].setOutput(NullSink.INSTANCE);
+        }
+        return games[decks];
+    }
+
+    /**
+     * Summarizes a replay of a whole log.
+     */
+    public static class Report {
+
+        // Rounds re-played, and how many of them diverged
+        private long rounds;
+        private long divergent;
+
+        // Rounds that could not be re-played
+        private long skipped;
+
+        // Descriptions of the first divergences
+        private final List<String> divergences = new ArrayList<>();
+
+        // Wall clock time the replay took
+        private long elapsedNanos;
+
+        /**
+         * @return the number of rounds re-played.
+         */
+        public long getRounds() {
+            return rounds;
+        }
+
+        /**
+         * @return the number of rounds that did not play out as recorded.
+         */
+        public long getDivergent() {
+            return divergent;
+        }
+
+        /**
+         * @return the number of rounds skipped because they cannot be re-played
+         *         from their seed.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * @return descriptions of the first {@link #MAX_REPORTED} divergences.
+         */
+        public List<String> getDivergences() {
+            return divergences;
+        }
+
+        /**
+         * Provides a summary of the replay, one statistic per line.
+         *
+         * @return String representation of the report.
+         */
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("Rounds replayed: %d%nDivergent: %d%nSkipped: %d%n"
+                    + "Speed: %.0f rounds/sec", rounds, divergent, skipped,
+                    elapsedNanos == 0 ? 0 : rounds * 1e9 / elapsedNanos));
+            for (String divergence : divergences) {
+                text.append(System.lineSeparator()).append("  ").append(divergence);
+            }
+            return text.toString();
+        }
+    }
+}
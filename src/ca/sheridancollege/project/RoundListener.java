@@ -0,0 +1,37 @@
+package ca.sheridancollege.project;
+
+/**
+ * Receives the events of a round driven by {@link BlackjackGame}, so a user
+ * interface or network table can react to a round without polling it.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public interface RoundListener {
+
+    /**
+     * Called when the initial cards have been dealt, before the first turn.
+     */
+    void roundStarted();
+
+    /**
+     * Called when it becomes a player's turn to decide.
+     *
+     * @param player the player whose turn it is.
+     */
+    void turnStarted(BlackjackPlayer player);
+
+    /**
+     * Called when a player draws a card during their turn.
+     *
+     * @param player the player who drew.
+     * @param card   the card drawn.
+     */
+    void cardDealt(BlackjackPlayer player, BlackjackCard card);
+
+    /**
+     * Called when the dealer has played and every hand has been settled.
+     *
+     * @param outcomes the outcome of each player's hand, in seat order.
+     */
+    void roundSettled(Outcome[] outcomes);
+}
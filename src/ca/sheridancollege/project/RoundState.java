@@ -0,0 +1,23 @@
+package ca.sheridancollege.project;
+
+/**
+ * Represents the stages of a round of Blackjack. A round moves through them in
+ * order: the cards are dealt, each player takes their turn, the dealer plays,
+ * and every hand is settled.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public enum RoundState {
+
+    /** The initial cards are being dealt. */
+    DEALING,
+
+    /** A player is deciding; the round waits for their decision. */
+    PLAYER_TURN,
+
+    /** Every player has finished and the dealer is playing. */
+    DEALER_TURN,
+
+    /** Every hand has been settled; a new round can start. */
+    SETTLED;
+}
@@ -0,0 +1,552 @@
+package ca.sheridancollege.project;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One Blackjack table hosted by the {@link GameServer}. Commands from the
+ * table's clients are queued in a mailbox and handled one at a time on one of
+ * the server's table threads, so the game itself never needs locking and never
+ * touches a socket; it only queues lines with
+ * {@link ClientConnection#send(String)}. The round itself is the
+ * {@link BlackjackGame} state machine, stepped by each command and reported
+ * back through {@link RoundListener} events.
+ *
+ * <p>
+ * A round starts once everyone seated has bet. Each player is then sent their
+ * cards and the dealer's upcard, and the players take their turns in seat
+ * order. Players who join during a round wait for the next one. Bets are
+ * taken from and paid back to the server's {@link Ledger}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class ServerTable implements RoundListener {
+
+    /** Number of seats at a table. */
+    public static final int SEATS = 4;
+
+    /** Number of decks in each table's shoe. */
+    public static final int SHOE_DECKS = 6;
+
+    // The table's number, shown to clients
+    private final int number;
+
+    // The server that runs the table's commands
+    private final GameServer server;
+
+    // Commands waiting to be handled
+    private final Queue<Command> mailbox = new ConcurrentLinkedQueue<>();
+
+    // Set while a table thread is handling the mailbox
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Seats taken or promised to clients who are joining
+    private final AtomicInteger seatsTaken = new AtomicInteger();
+
+    // The fields below are only used by the thread handling the mailbox
+
+    // Everyone seated, in seat order
+    private final List<Seat> seats = new ArrayList<>();
+
+    // The seats playing the current round, and their hands
+    private final List<Seat> round = new ArrayList<>();
+    private final List<BlackjackPlayer> roundPlayers = new ArrayList<>();
+
+    // The game that deals the rounds
+    private final BlackjackGame game;
+
+    // The house rules the game is played under
+    private final HouseRules rules;
+
+    /**
+     * Constructs a new empty table.
+     *
+     * @param number the table's number, shown to clients.
+     * @param server the server that runs the table's commands.
+     * @param rules  the house rules the table is played under.
+     */
+    ServerTable(int number, GameServer server, HouseRules rules) {
+        this.number = number;
+        this.server = server;
+        this.rules = rules;
+        game = new BlackjackGame("Table " + number, roundPlayers,
+                new BlackjackDeck(SHOE_DECKS, BlackjackDeck.DEFAULT_PENETRATION));
+        game.setRules(rules);
+        game.setListener(this);
+        game.setOutput(NullSink.INSTANCE);
+        game.setHistory(server.getHistory(), number);
+    }
+
+    /**
+     * Promises a seat to a client who is about to join.
+     *
+     * @return true if a seat was free.
+     */
+    boolean reserveSeat() {
+        int taken;
+        do {
+            taken = seatsTaken.get();
+            if (taken >= SEATS) {
+                return false;
+            }
+        } while (!seatsTaken.compareAndSet(taken, taken + 1));
+        return true;
+    }
+
+    /**
+     * @return the house rules the table is played under.
+     */
+    HouseRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Queues a command from a client. Safe to call from any thread.
+     *
+     * @param connection the client.
+     * @param command    the command, in lower case.
+     * @param argument   the rest of the line.
+     */
+    void submit(ClientConnection connection, String command, String argument) {
+        mailbox.add(new Command(connection, command, argument));
+        schedule();
+    }
+
+    /**
+     * Makes sure a table thread will handle the mailbox.
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            server.execute(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            });
+        }
+    }
+
+    /**
+     * Handles every queued command.
+     */
+    private void drain() {
+        Command command;
+        while ((command = mailbox.poll()) != null) {
+            try {
+                handle(command);
+            } catch (RuntimeException e) {
+                command.connection.send("ERR " + e.getMessage());
+            }
+        }
+        scheduled.set(false);
+        // A command may have been queued after the loop but before the flag was cleared
+        if (!mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * Handles one command.
+     *
+     * @param command the command.
+     */
+    private void handle(Command command) {
+        ClientConnection connection = command.connection;
+        if ("join".equals(command.name)) {
+            join(connection);
+            return;
+        }
+
+        Seat seat = find(connection);
+        if (seat == null) {
+            return;
+        }
+        switch (command.name) {
+            case "bet":
+                bet(seat, command.argument);
+                break;
+            case "hit":
+                hit(seat);
+                break;
+            case "double":
+                doubleDown(seat);
+                break;
+            case "stand":
+                if (checkTurn(seat)) {
+                    game.decide(Decision.STAND);
+                    playOn();
+                }
+                break;
+            case "hint":
+                if (checkTurn(seat)) {
+                    connection.send("HINT " + game.hint(seat.player));
+                }
+                break;
+            case "leave":
+                leave(seat);
+                break;
+            default:
+                connection.send("ERR unknown command " + command.name);
+        }
+    }
+
+    /**
+     * Seats a client whose seat was reserved by the server.
+     *
+     * @param connection the client.
+     */
+    private void join(ClientConnection connection) {
+        Seat seat = new Seat(connection);
+        seats.add(seat);
+        long balance = server.getLedger().open(connection.getName());
+        connection.send("OK joined table " + number + " seat " + seats.size() + " rules " + rules);
+        connection.send("BALANCE " + balance);
+    }
+
+    /**
+     * Places a seat's bet for the next round, and starts the round if everyone
+     * seated has bet.
+     *
+     * @param seat     the seat.
+     * @param argument the amount.
+     */
+    private void bet(Seat seat, String argument) {
+        if (inRound(seat)) {
+            seat.connection.send("ERR round in progress");
+            return;
+        }
+        if (seat.wager != null) {
+            seat.connection.send("ERR already bet");
+            return;
+        }
+        int amount;
+        try {
+            amount = Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            amount = 0;
+        }
+        if (amount <= 0) {
+            seat.connection.send("ERR bet must be a positive whole number");
+            return;
+        }
+        seat.wager = server.getLedger().placeBet(seat.connection.getName(), amount);
+        if (seat.wager == null) {
+            seat.connection.send("ERR insufficient funds");
+            return;
+        }
+        seat.connection.send("OK bet " + amount);
+        startRoundIfReady();
+    }
+
+    /**
+     * Deals a card to the seat whose turn it is.
+     *
+     * @param seat the seat.
+     */
+    private void hit(Seat seat) {
+        if (checkTurn(seat)) {
+            game.decide(Decision.HIT);
+            playOn();
+        }
+    }
+
+    /**
+     * Doubles the bet of the seat whose turn it is and deals it one last card.
+     *
+     * @param seat the seat.
+     */
+    private void doubleDown(Seat seat) {
+        if (!checkTurn(seat)) {
+            return;
+        }
+        if (seat.player.getHand().size() != 2) {
+            seat.connection.send("ERR can only double on the first two cards");
+            return;
+        }
+        if (!server.getLedger().doubleBet(seat.wager)) {
+            seat.connection.send("ERR insufficient funds");
+            return;
+        }
+        seat.connection.send("OK bet " + seat.wager.getStake());
+        game.decide(Decision.DOUBLE);
+        playOn();
+    }
+
+    /**
+     * Removes a client from the table. A player who leaves during a round stands
+     * and loses their seat when the round ends.
+     *
+     * @param seat the seat.
+     */
+    private void leave(Seat seat) {
+        seat.left = true;
+        if (inRound(seat)) {
+            playOn();
+            return;
+        }
+        if (seat.wager != null) {
+            server.getLedger().cancel(seat.wager);
+            seat.wager = null;
+        }
+        removeSeat(seat);
+        startRoundIfReady();
+    }
+
+    /**
+     * Starts a round if there is no round in progress and everyone seated has
+     * bet.
+     */
+    private void startRoundIfReady() {
+        if (game.getState() != RoundState.SETTLED || seats.isEmpty()) {
+            return;
+        }
+        for (Seat seat : seats) {
+            if (seat.wager == null) {
+                return;
+            }
+        }
+
+        round.clear();
+        roundPlayers.clear();
+        for (Seat seat : seats) {
+            round.add(seat);
+            roundPlayers.add(seat.player);
+        }
+
+        game.getDeck().reshuffleIfNeeded();
+        game.startRound();
+        skipIdleTurns();
+    }
+
+    /**
+     * Stands for every player in turn who cannot usefully act: players who have
+     * left and players who already have 21.
+     */
+    private void skipIdleTurns() {
+        while (game.getState() == RoundState.PLAYER_TURN && !canAct(find(game.getCurrentPlayer()))) {
+            game.decide(Decision.STAND);
+        }
+    }
+
+    /**
+     * Moves the round on after a decision: stands every hand that will not be
+     * played, then, if that settled the round, starts the next one when
+     * everyone still seated has already bet for it. Players who bet while the
+     * round was being played would otherwise wait forever, since no more bets
+     * can be placed. Only called once the round's listener callbacks have
+     * returned.
+     */
+    private void playOn() {
+        skipIdleTurns();
+        startRoundIfReady();
+    }
+
+    /**
+     * @param seat a seat in the current round.
+     * @return true if the seat's player is still at the table and below 21.
+     */
+    private boolean canAct(Seat seat) {
+        return !seat.left && seat.player.getScore() < 21;
+    }
+
+    /**
+     * Sends every player their cards and the dealer's upcard.
+     */
+    @Override
+    public void roundStarted() {
+        String upcard = format(game.getDealer().getUpcard());
+        for (Seat seat : round) {
+            // Players see both of their own cards
+            seat.player.revealHiddenCard();
+            List<BlackjackCard> hand = seat.player.getHand();
+            seat.connection.send("DEAL " + format(hand.get(0)) + " " + format(hand.get(1))
+                    + " SCORE " + seat.player.getScore() + " DEALER " + upcard);
+        }
+    }
+
+    /**
+     * Tells everyone whose turn it is, unless the player will be skipped.
+     *
+     * @param player the player whose turn it is.
+     */
+    @Override
+    public void turnStarted(BlackjackPlayer player) {
+        Seat seat = find(player);
+        if (canAct(seat)) {
+            broadcast("TURN " + seat.connection.getName());
+        }
+    }
+
+    /**
+     * Sends a player the card they drew.
+     *
+     * @param player the player who drew.
+     * @param card   the card drawn.
+     */
+    @Override
+    public void cardDealt(BlackjackPlayer player, BlackjackCard card) {
+        Seat seat = find(player);
+        seat.connection.send("CARD " + format(card) + " SCORE " + player.getScore());
+        if (player.isBusted()) {
+            seat.connection.send("BUST");
+        }
+    }
+
+    /**
+     * Shows everyone the dealer's hand, settles every bet and clears the table
+     * for the next round.
+     *
+     * @param outcomes the outcome of each player's hand, in seat order.
+     */
+    @Override
+    public void roundSettled(Outcome[] outcomes) {
+        StringBuilder dealer = new StringBuilder("DEALER");
+        for (BlackjackCard card : game.getDealer().getHand()) {
+            dealer.append(' ').append(format(card));
+        }
+        broadcast(dealer.append(" SCORE ").append(game.getDealer().getScore()).toString());
+
+        for (int i = 0; i < round.size(); i++) {
+            Seat seat = round.get(i);
+            long net = server.getLedger().settle(seat.wager, outcomes[i]);
+            seat.wager = null;
+            seat.connection.send("RESULT " + outcomes[i] + " " + net);
+            seat.connection.send("BALANCE " + server.getLedger().getBalance(seat.connection.getName()));
+        }
+        game.flushMetrics();
+
+        for (Iterator<Seat> it = seats.iterator(); it.hasNext();) {
+            Seat seat = it.next();
+            if (seat.left) {
+                it.remove();
+                seatsTaken.decrementAndGet();
+            }
+        }
+        round.clear();
+    }
+
+    /**
+     * Checks that it is a seat's turn, and tells the client if it is not.
+     *
+     * @param seat the seat.
+     * @return true if it is the seat's turn.
+     */
+    private boolean checkTurn(Seat seat) {
+        if (game.getCurrentPlayer() != seat.player) {
+            seat.connection.send("ERR not your turn");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends a line to everyone seated.
+     *
+     * @param line the line.
+     */
+    private void broadcast(String line) {
+        for (Seat seat : seats) {
+            if (!seat.left) {
+                seat.connection.send(line);
+            }
+        }
+    }
+
+    /**
+     * @param connection a client.
+     * @return the client's seat, or null if the client is not seated.
+     */
+    private Seat find(ClientConnection connection) {
+        for (Seat seat : seats) {
+            if (seat.connection == connection) {
+                return seat;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param player a player in the current round.
+     * @return the player's seat.
+     */
+    private Seat find(BlackjackPlayer player) {
+        for (Seat seat : round) {
+            if (seat.player == player) {
+                return seat;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param seat a seat.
+     * @return true if the seat is playing a round that has not been settled.
+     */
+    private boolean inRound(Seat seat) {
+        return game.getState() != RoundState.SETTLED && round.contains(seat);
+    }
+
+    /**
+     * Gives up a seat between rounds.
+     *
+     * @param seat the seat.
+     */
+    private void removeSeat(Seat seat) {
+        seats.remove(seat);
+        seatsTaken.decrementAndGet();
+    }
+
+    /**
+     * Formats a card for the protocol, e.g., "10H" or "AS".
+     *
+     * @param card the card.
+     * @return the card's display value followed by the first letter of its suit.
+     */
+    static String format(BlackjackCard card) {
+        return card.getDisplayValue() + card.getSuit().name().charAt(0);
+    }
+
+    /**
+     * A client seated at the table.
+     */
+    private static class Seat {
+
+        // The client
+        final ClientConnection connection;
+
+        // The client's hand
+        final BlackjackPlayer player;
+
+        // The bet on the next or current round, or null if none
+        Ledger.Wager wager;
+
+        // Set when the client has left during a round
+        boolean left;
+
+        Seat(ClientConnection connection) {
+            this.connection = connection;
+            this.player = new BlackjackPlayer(connection.getName());
+        }
+    }
+
+    /**
+     * A command queued in the mailbox.
+     */
+    private static class Command {
+
+        final ClientConnection connection;
+        final String name;
+        final String argument;
+
+        Command(ClientConnection connection, String name, String argument) {
+            this.connection = connection;
+            this.name = name;
+            this.argument = argument;
+        }
+    }
+}
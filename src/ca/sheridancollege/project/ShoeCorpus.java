@@ -0,0 +1,275 @@
+package ca.sheridancollege.project;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file of shoes shuffled ahead of time, memory-mapped so simulations read
+ * them straight from the page cache instead of shuffling. Every variant of a
+ * simulation run over the same corpus is dealt exactly the same shoes, so the
+ * difference between two variants is measured with common random numbers
+ * rather than buried in the noise of different cards.
+ *
+ * <p>
+ * Each shoe is stored as the seed it was shuffled from followed by its card
+ * codes ({@link BlackjackCard#getCode()}), one byte per card in dealing order.
+ * A shoe from the corpus is the same shoe {@link BlackjackDeck#shuffle(long)}
+ * deals from its seed, so hands played from a corpus can still be logged and
+ * replayed. Layout, in big-endian byte order:
+ *
+ * <pre>
+ * offset size field
+ *      0    4 magic, "SHOE"
+ *      4    4 number of decks in each shoe
+ *      8    8 number of shoes
+ *     16    8 seed the shoes' seeds were drawn from
+ *     24      shoes, each an 8 byte seed and 52 * decks card codes
+ * </pre>
+ *
+ * The file is mapped in parts of whole shoes so a corpus can be larger than
+ * one mapped buffer. Threads read the corpus through their own
+ * {@link Slice}s.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class ShoeCorpus implements Closeable {
+
+    /** First four bytes of a corpus file. */
+    public static final int MAGIC = 0x53484F45;
+
+    /** Size of the file header in bytes. */
+    public static final int HEADER_SIZE = 24;
+
+    // Size of each shoe's seed in bytes
+    private static final int SEED_SIZE = 8;
+
+    // Largest size of one mapped part of the file
+    private static final int MAX_PART_SIZE = 1 << 30;
+
+    // The open file
+    private final RandomAccessFile file;
+
+    // Number of decks in each shoe, shoes in the file and bytes per shoe
+    private final int decks;
+    private final long shoes;
+    private final int shoeSize;
+
+    // Seed the shoes' seeds were drawn from
+    private final long seed;
+
+    // Number of shoes in each mapped part, and the parts
+    private final int shoesPerPart;
+    private final MappedByteBuffer[] parts;
+
+    /**
+     * Opens a corpus and maps it for reading.
+     *
+     * @param path the corpus file.
+     * @throws IOException if the file cannot be read or is not a corpus.
+     */
+    public ShoeCorpus(File path) throws IOException {
+        file = new RandomAccessFile(path, "r");
+        try {
+            if (file.length() < HEADER_SIZE) {
+                throw new IOException(path + " is not a shoe corpus");
+            }
+            ByteBuffer header = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a shoe corpus");
+            }
+            decks = header.getInt(4);
+            shoes = header.getLong(8);
+            seed = header.getLong(16);
+            if (decks < BlackjackDeck.MIN_DECKS || decks > BlackjackDeck.MAX_DECKS || shoes <= 0) {
+                throw new IOException(path + " has a damaged header");
+            }
+            shoeSize = SEED_SIZE + 52 * decks;
+            if (file.length() < HEADER_SIZE + shoes * shoeSize) {
+                throw new IOException(path + " is shorter than its " + shoes + " shoes");
+            }
+
+            shoesPerPart = MAX_PART_SIZE / shoeSize;
+            parts = new MappedByteBuffer[(int) ((shoes + shoesPerPart - 1) / shoesPerPart)];
+            for (int part = 0; part < parts.length; part++) {
+                long first = (long) part * shoesPerPart;
+                long count = Math.min(shoesPerPart, shoes - first);
+                parts[part] = file.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + first * shoeSize, count * shoeSize);
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a new corpus, replacing any file already there. The shoes' seeds
+     * are drawn in turn from a generator seeded with the given seed, so the
+     * same arguments always write the same file.
+     *
+     * @param path  the corpus file.
+     * @param decks the number of decks in each shoe (1-8).
+     * @param shoes the number of shoes to write.
+     * @param seed  the seed the shoes' seeds are drawn from.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(File path, int decks, long shoes, long seed) throws IOException {
+        if (decks < BlackjackDeck.MIN_DECKS || decks > BlackjackDeck.MAX_DECKS) {
+            throw new IllegalArgumentException("A shoe must have between " + BlackjackDeck.MIN_DECKS + " and "
+                    + BlackjackDeck.MAX_DECKS + " decks: " + decks);
+        }
+        if (shoes <= 0) {
+            throw new IllegalArgumentException("A corpus needs at least one shoe: " + shoes);
+        }
+        int cards = 52 * decks;
+        int shoeSize = SEED_SIZE + cards;
+        int shoesPerPart = MAX_PART_SIZE / shoeSize;
+        RandomSource seeds = new XoroshiroRandomSource(seed);
+        int[] order = new int[cards];
+
+        try (RandomAccessFile out = new RandomAccessFile(path, "rw")) {
+            out.setLength(0);
+            FileChannel channel = out.getChannel();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            header.putInt(4, decks);
+            header.putLong(8, shoes);
+            header.putLong(16, seed);
+
+            for (long first = 0; first < shoes; first += shoesPerPart) {
+                long count = Math.min(shoesPerPart, shoes - first);
+                MappedByteBuffer part = channel.map(FileChannel.MapMode.READ_WRITE,
+                        HEADER_SIZE + first * shoeSize, count * shoeSize);
+                for (long shoe = 0; shoe < count; shoe++) {
+                    long shoeSeed = seeds.nextLong();
+                    // The same shuffle as BlackjackDeck#shuffle(long), whose
+                    // shoe holds the card with code i % 52 at index i
+                    for (int i = 0; i < cards; i++) {
+                        order[i] = i;
+                    }
+                    GroupOfCards.shuffle(order, new XoroshiroRandomSource(shoeSeed));
+                    part.putLong(shoeSeed);
+                    for (int i = 0; i < cards; i++) {
+                        part.put((byte) (order[i] % 52));
+                    }
+                }
+                part.force();
+            }
+            header.force();
+        }
+    }
+
+    /**
+     * @return the number of decks in each shoe.
+     */
+    public int getDecks() {
+        return decks;
+    }
+
+    /**
+     * @return the number of shoes in the corpus.
+     */
+    public long getShoeCount() {
+        return shoes;
+    }
+
+    /**
+     * @return the seed the shoes' seeds were drawn from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets a reader over a run of shoes, for one thread.
+     *
+     * @param first the first shoe of the slice.
+     * @param count the number of shoes in the slice; reading past the end
+     *              starts from its first shoe again.
+     * @return the slice.
+     */
+    public Slice slice(long first, long count) {
+        if (first < 0 || count <= 0 || first + count > shoes) {
+            throw new IllegalArgumentException("Shoes " + first + " to " + (first + count) + " are not in a corpus of "
+                    + shoes);
+        }
+        return new Slice(first, count);
+    }
+
+    /**
+     * Closes the file. Slices can still be read until they are garbage
+     * collected, since the mapped shoes stay valid.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Reads the shoes of a slice of the corpus one after another. Reading copies
+     * a shoe's bytes from the mapped file with no system call. A slice keeps
+     * its own views of the mapped buffers, so it must only be used by one
+     * thread, but any number of slices can read the corpus at once.
+     */
+    public class Slice {
+
+        // The first shoe and number of shoes in the slice
+        private final long first;
+        private final long count;
+
+        // This slice's views of the mapped parts
+        private final ByteBuffer[] views = new ByteBuffer[parts.length];
+
+        // Index of the next shoe to read, counting from the first
+        private long next;
+
+        /**
+         * Constructs a new slice.
+         *
+         * @param first the first shoe of the slice.
+         * @param count the number of shoes in the slice.
+         */
+        private Slice(long first, long count) {
+            this.first = first;
+            this.count = count;
+        }
+
+        /**
+         * Reads the next shoe of the slice.
+         *
+         * @param codes an array the shoe's card codes are copied into, in
+         *              dealing order.
+         * @param offset where in the array the first card goes.
+         * @return the seed the shoe was shuffled from.
+         */
+        public long next(byte[] codes, int offset) {
+            long shoe = first + next;
+            next = next + 1 == count ? 0 : next + 1;
+
+            int part = (int) (shoe / shoesPerPart);
+            ByteBuffer view = views[part];
+            if (view == null) {
+                view = parts[part].duplicate();
+                views[part] = view;
+            }
+            view.position((int) (shoe % shoesPerPart) * shoeSize);
+            long shoeSeed = view.getLong();
+            view.get(codes, offset, shoeSize - SEED_SIZE);
+            return shoeSeed;
+        }
+
+        /**
+         * @return the number of decks in each shoe.
+         */
+        public int getDecks() {
+            return decks;
+        }
+    }
+}
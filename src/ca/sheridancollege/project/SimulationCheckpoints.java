@@ -0,0 +1,71 @@
+package ca.sheridancollege.project;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes the running results of a simulation to a CSV file as it progresses,
+ * one row per checkpoint, so a long run can be watched (or plotted) while it
+ * converges and a run that is stopped early still leaves its results behind.
+ * Each row is flushed as soon as it is written.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class SimulationCheckpoints implements Closeable {
+
+    /** The first line of the file. */
+    public static final String HEADER = "hands,expected_value,ci95_low,ci95_high,standard_deviation,"
+            + "win_rate,blackjack_rate,loss_rate,push_rate,dealer_bust_rate,elapsed_seconds,hands_per_second";
+
+    // The file being written
+    private final Writer out;
+
+    /**
+     * Creates the file, replacing any file already there, and writes the
+     * header.
+     *
+     * @param file the file.
+     * @throws IOException if the file cannot be written.
+     */
+    public SimulationCheckpoints(File file) throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII));
+        out.write(HEADER);
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Writes a row for the results so far.
+     *
+     * @param result the results so far.
+     * @throws IOException if the row cannot be written.
+     */
+    public void write(SimulationResult result) throws IOException {
+        double hands = Math.max(1, result.getHands());
+        double ev = result.getExpectedValue();
+        double margin = result.getMarginOfError();
+        out.write(String.format(Locale.ROOT, "%d,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.6f,%.3f,%.0f\n",
+                result.getHands(), ev, ev - margin, ev + margin, result.getStandardDeviation(),
+                result.getWins() / hands, result.getBlackjacks() / hands, result.getLosses() / hands,
+                result.getPushes() / hands, result.getDealerBustRate(),
+                result.getElapsedNanos() / 1e9, result.getHandsPerSecond()));
+        out.flush();
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,347 @@
+package ca.sheridancollege.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares one seeded simulation run between {@link SimulationWorker}s in other
+ * processes, on this machine or others. The run's blocks are split in halves,
+ * the same way {@link Simulator#run(long)} splits them, until each range is no
+ * more than {@link #setShardBlocks(int)} blocks; each range is a shard. Workers
+ * connect over TCP and are handed one shard at a time, and send back the
+ * shard's {@link SimulationResult}. The results are merged in halves again, so
+ * the totals are exactly those of a single process's run with the same seed.
+ *
+ * <p>
+ * A shard whose worker disconnects, fails or does not answer within
+ * {@link #setShardTimeout(int)} milliseconds goes back in the queue and is
+ * handed to the next worker that asks; the run finishes whenever every shard
+ * has a result, whichever workers played them. Workers may connect at any
+ * time during the run.
+ *
+ * <p>
+ * The protocol is binary, in big-endian byte order. The worker sends
+ * {@link #MAGIC}; the coordinator answers with {@link #MAGIC} and the job:
+ * seed (long), hands (long), decks (int), penetration (double), house rules
+ * index (byte) and batch lanes (int). Then, repeatedly, the coordinator sends
+ * {@link #SHARD} with the first block and one past the last block (longs),
+ * and the worker answers with the first block and the result, written by
+ * {@link SimulationResult#writeTo(java.io.DataOutput)}. {@link #DONE} ends the
+ * run.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class SimulationCoordinator {
+
+    /** Port used when none is given. */
+    public static final int DEFAULT_PORT = 4022;
+
+    /** Most blocks in one shard, when not set. */
+    public static final int DEFAULT_SHARD_BLOCKS = 64;
+
+    /** Milliseconds a worker has to play a shard, when not set. */
+    public static final int DEFAULT_SHARD_TIMEOUT = 600_000;
+
+    /** First four bytes sent each way when a worker connects, "SIMU". */
+    public static final int MAGIC = 0x53494D55;
+
+    /** Sent before a shard for the worker to play. */
+    public static final byte SHARD = 1;
+
+    /** Sent when every shard has been played. */
+    public static final byte DONE = 0;
+
+    // Milliseconds an idle worker waits between checks for a shard
+    private static final long POLL_MILLIS = 100;
+
+    // Accepts workers
+    private final ServerSocket server;
+
+    // The seed and length of the run
+    private final long seed;
+    private final long hands;
+
+    // The options of the run, sent to every worker
+    private int decks = 6;
+    private double penetration = BlackjackDeck.DEFAULT_PENETRATION;
+    private HouseRules rules = HouseRules.DEFAULT;
+    private int batchLanes = Simulator.DEFAULT_BATCH_LANES;
+
+    // Most blocks in a shard
+    private int shardBlocks = DEFAULT_SHARD_BLOCKS;
+
+    // Milliseconds a worker has to play a shard
+    private int shardTimeout = DEFAULT_SHARD_TIMEOUT;
+
+    // Shards waiting for a worker, as first and one past last block
+    private final BlockingQueue<long[]> pending = new LinkedBlockingQueue<>();
+
+    // The result of every shard played, by its first block
+    private final Map<Long, SimulationResult> results = new ConcurrentHashMap<>();
+
+    // Counts down as shards are played
+    private CountDownLatch remaining;
+
+    // Set once every shard has been played
+    private volatile boolean finished;
+
+    // Workers that have connected, and shards handed out again
+    private final AtomicInteger workers = new AtomicInteger();
+    private final AtomicInteger reassigned = new AtomicInteger();
+
+    /**
+     * Constructs a new coordinator listening for workers.
+     *
+     * @param port  the port to listen on, or 0 for any free port.
+     * @param seed  the seed of the run.
+     * @param hands the number of hands in the run.
+     * @throws IOException if the port cannot be opened.
+     */
+    public SimulationCoordinator(int port, long seed, long hands) throws IOException {
+        server = new ServerSocket(port);
+        this.seed = seed;
+        this.hands = hands;
+    }
+
+    /**
+     * @return the port workers connect to.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @param decks the number of decks in each block's shoe (1-8).
+     */
+    public void setDecks(int decks) {
+        this.decks = decks;
+    }
+
+    /**
+     * @param penetration the share of each shoe dealt before it is reshuffled.
+     */
+    public void setPenetration(double penetration) {
+        this.penetration = penetration;
+    }
+
+    /**
+     * @param rules the house rules every block is played under.
+     */
+    public void setRules(HouseRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @param lanes the most blocks each worker plays in lockstep, or 0 for
+     *              none; see {@link Simulator#setBatchLanes(int)}.
+     */
+    public void setBatchLanes(int lanes) {
+        this.batchLanes = lanes;
+    }
+
+    /**
+     * @param blocks the most blocks in one shard; smaller shards share the
+     *               run out more evenly and lose less work to a failure.
+     */
+    public void setShardBlocks(int blocks) {
+        if (blocks <= 0) {
+            throw new IllegalArgumentException("A shard needs at least one block: " + blocks);
+        }
+        this.shardBlocks = blocks;
+    }
+
+    /**
+     * @param millis the milliseconds a worker has to play a shard before the
+     *               shard is handed to another worker.
+     */
+    public void setShardTimeout(int millis) {
+        this.shardTimeout = millis;
+    }
+
+    /**
+     * @return the number of workers that have connected.
+     */
+    public int getWorkers() {
+        return workers.get();
+    }
+
+    /**
+     * @return the number of shards handed out again after their worker failed.
+     */
+    public int getReassignedShards() {
+        return reassigned.get();
+    }
+
+    /**
+     * Shares the run out between the workers that connect and waits for every
+     * shard to be played, then stops listening.
+     *
+     * @return the merged results of the run.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public SimulationResult run() throws InterruptedException {
+        long start = System.nanoTime();
+        long blocks = Simulator.blocks(hands);
+        if (blocks == 0) {
+            closeServer();
+            return new SimulationResult();
+        }
+        remaining = new CountDownLatch(split(0, blocks));
+
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "coordinator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        try {
+            remaining.await();
+        } finally {
+            finished = true;
+            closeServer();
+        }
+
+        SimulationResult result = merge(0, blocks);
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Queues the shards of a range of blocks, split as
+     * {@link Simulator#run(long)} splits it.
+     *
+     * @param from the first block.
+     * @param to   one past the last block.
+     * @return the number of shards queued.
+     */
+    private int split(long from, long to) {
+        if (to - from <= shardBlocks) {
+            pending.add(new long[] { from, to });
+            return 1;
+        }
+        long middle = (from + to) >>> 1;
+        return split(from, middle) + split(middle, to);
+    }
+
+    /**
+     * Merges the results of a range of blocks in the order they were split.
+     *
+     * @param from the first block.
+     * @param to   one past the last block.
+     * @return the merged results.
+     */
+    private SimulationResult merge(long from, long to) {
+        if (to - from <= shardBlocks) {
+            return results.get(from);
+        }
+        long middle = (from + to) >>> 1;
+        return merge(from, middle).merge(merge(middle, to));
+    }
+
+    /**
+     * Accepts workers until the run is finished, serving each on its own
+     * thread.
+     */
+    private void accept() {
+        while (!finished) {
+            try {
+                final Socket socket = server.accept();
+                workers.incrementAndGet();
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                }, "coordinator-worker-" + workers.get());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                // The socket is closed when the run finishes
+            }
+        }
+    }
+
+    /**
+     * Hands shards to one worker until the run is finished or the worker
+     * fails. A shard the worker was playing when it failed is queued again.
+     *
+     * @param socket the worker's connection.
+     */
+    private void serve(Socket socket) {
+        try (Socket connection = socket) {
+            connection.setSoTimeout(shardTimeout);
+            connection.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            if (in.readInt() != MAGIC) {
+                return;
+            }
+            out.writeInt(MAGIC);
+            out.writeLong(seed);
+            out.writeLong(hands);
+            out.writeInt(decks);
+            out.writeDouble(penetration);
+            out.writeByte(rules.index());
+            out.writeInt(batchLanes);
+            out.flush();
+
+            while (true) {
+                long[] shard = null;
+                while (shard == null && !finished) {
+                    shard = pending.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (shard == null) {
+                    out.writeByte(DONE);
+                    out.flush();
+                    return;
+                }
+                try {
+                    out.writeByte(SHARD);
+                    out.writeLong(shard[0]);
+                    out.writeLong(shard[1]);
+                    out.flush();
+                    if (in.readLong() != shard[0]) {
+                        throw new IOException("The worker answered for the wrong shard");
+                    }
+                    SimulationResult result = SimulationResult.readFrom(in);
+                    if (results.putIfAbsent(shard[0], result) == null) {
+                        remaining.countDown();
+                    }
+                } catch (IOException e) {
+                    reassigned.incrementAndGet();
+                    pending.add(shard);
+                    throw e;
+                }
+            }
+        } catch (IOException e) {
+            // The worker is gone; any shard it held has been queued again
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops listening for workers.
+     */
+    private void closeServer() {
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Nothing more can be done
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package ca.sheridancollege.project;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Holds the aggregated results of a headless simulation run. A result is a
+ * streaming accumulator: each worker records its own hands into its own
+ * result, in constant memory however many hands it plays, and results are
+ * merged when the workers finish. The mean and variance of the return per hand
+ * are kept with Welford's method and merged with Chan's formula, so the
+ * confidence interval stays accurate over billions of hands.
+ *
+ * <p>
+ * Besides the overall outcome counts, a result breaks the hands down by the
+ * dealer's upcard, to give the dealer's bust rate for each, and by the Hi-Lo
+ * true count at the start of the round.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class SimulationResult {
+
+    /** Lowest true count bucket; lower counts are counted in it. */
+    public static final int MIN_TRUE_COUNT = -6;
+
+    /** Highest true count bucket; higher counts are counted in it. */
+    public static final int MAX_TRUE_COUNT = 6;
+
+    /** Multiple of the standard error that gives a 95% confidence interval. */
+    public static final double Z_95 = 1.959963984540054;
+
+    /** Number of hands played. */
+    private long hands;
+
+    /** Number of hands the player won, including Blackjacks. */
+    private long wins;
+
+    /** Number of hands the player won with a Blackjack. */
+    private long blackjacks;
+
+    /** Number of hands the player lost. */
+    private long losses;
+
+    /** Number of hands that were a tie. */
+    private long pushes;
+
+    /** Total units won (positive) or lost (negative) for one unit per hand. */
+    private double net;
+
+    /** Running mean of the units won per hand. */
+    private double mean;
+
+    /** Running sum of squared differences from the mean. */
+    private double m2;
+
+    /** Hands played and hands the dealer busted, by the dealer's upcard. */
+    private final long[] upcardHands = new long[11];
+    private final long[] dealerBusts = new long[11];
+
+    /** Hands played and units won, by true count bucket. */
+    private final long[] trueCountHands = new long[MAX_TRUE_COUNT - MIN_TRUE_COUNT + 1];
+    private final double[] trueCountNet = new double[MAX_TRUE_COUNT - MIN_TRUE_COUNT + 1];
+
+    /** Wall clock time the run took, in nanoseconds. */
+    private long elapsedNanos;
+
+    /**
+     * Records the outcome of one hand.
+     *
+     * @param outcome      the outcome of the hand.
+     * @param units        the number of units bet on the hand (2 if doubled).
+     * @param upcard       the point value of the dealer's upcard.
+     * @param dealerBusted whether the dealer busted.
+     * @param trueCount    the true count when the hand was dealt.
+     */
+    public void record(Outcome outcome, int units, int upcard, boolean dealerBusted, double trueCount) {
+        hands++;
+        switch (outcome) {
+            case BLACKJACK:
+                blackjacks++;
+                wins++;
+                break;
+            case WIN:
+                wins++;
+                break;
+            case LOSS:
+                losses++;
+                break;
+            default:
+                pushes++;
+        }
+        double won = outcome.getPayout() * units;
+        net += won;
+        double delta = won - mean;
+        mean += delta / hands;
+        m2 += delta * (won - mean);
+
+        upcardHands[upcard]++;
+        if (dealerBusted) {
+            dealerBusts[upcard]++;
+        }
+        int bucket = bucket(trueCount);
+        trueCountHands[bucket]++;
+        trueCountNet[bucket] += won;
+    }
+
+    /**
+     * Adds the results of another run to this one. Floating point addition is
+     * not associative, so merge results in a fixed order (such as block order)
+     * to get the same totals from every run with the same seed.
+     *
+     * @param other the results to add.
+     * @return this result, for chaining.
+     */
+    public SimulationResult merge(SimulationResult other) {
+        if (other.hands != 0) {
+            long total = hands + other.hands;
+            double delta = other.mean - mean;
+            mean += delta * other.hands / total;
+            m2 += other.m2 + delta * delta * ((double) hands * other.hands / total);
+        }
+        hands += other.hands;
+        wins += other.wins;
+        blackjacks += other.blackjacks;
+        losses += other.losses;
+        pushes += other.pushes;
+        net += other.net;
+        for (int i = 0; i < upcardHands.length; i++) {
+            upcardHands[i] += other.upcardHands[i];
+            dealerBusts[i] += other.dealerBusts[i];
+        }
+        for (int i = 0; i < trueCountHands.length; i++) {
+            trueCountHands[i] += other.trueCountHands[i];
+            trueCountNet[i] += other.trueCountNet[i];
+        }
+        return this;
+    }
+
+    /**
+     * Writes the result in a compact binary form that
+     * {@link #readFrom(DataInput)} reads back exactly, so results played in
+     * other processes can be merged as if they had been played here.
+     *
+     * @param out where the result is written.
+     * @throws IOException if the result cannot be written.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(hands);
+        out.writeLong(wins);
+        out.writeLong(blackjacks);
+        out.writeLong(losses);
+        out.writeLong(pushes);
+        out.writeDouble(net);
+        out.writeDouble(mean);
+        out.writeDouble(m2);
+        for (int i = 0; i < upcardHands.length; i++) {
+            out.writeLong(upcardHands[i]);
+            out.writeLong(dealerBusts[i]);
+        }
+        for (int i = 0; i < trueCountHands.length; i++) {
+            out.writeLong(trueCountHands[i]);
+            out.writeDouble(trueCountNet[i]);
+        }
+        out.writeLong(elapsedNanos);
+    }
+
+    /**
+     * Reads a result written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in where the result is read from.
+     * @return the result.
+     * @throws IOException if the result cannot be read.
+     */
+    public static SimulationResult readFrom(DataInput in) throws IOException {
+        SimulationResult result = new SimulationResult();
+        result.hands = in.readLong();
+        result.wins = in.readLong();
+        result.blackjacks = in.readLong();
+        result.losses = in.readLong();
+        result.pushes = in.readLong();
+        result.net = in.readDouble();
+        result.mean = in.readDouble();
+        result.m2 = in.readDouble();
+        for (int i = 0; i < result.upcardHands.length; i++) {
+            result.upcardHands[i] = in.readLong();
+            result.dealerBusts[i] = in.readLong();
+        }
+        for (int i = 0; i < result.trueCountHands.length; i++) {
+            result.trueCountHands[i] = in.readLong();
+            result.trueCountNet[i] = in.readDouble();
+        }
+        result.elapsedNanos = in.readLong();
+        return result;
+    }
+
+    /**
+     * @return the number of hands played.
+     */
+    public long getHands() {
+        return hands;
+    }
+
+    /**
+     * @return the number of hands the player won, including Blackjacks.
+     */
+    public long getWins() {
+        return wins;
+    }
+
+    /**
+     * @return the number of hands the player won with a Blackjack.
+     */
+    public long getBlackjacks() {
+        return blackjacks;
+    }
+
+    /**
+     * @return the number of hands the player lost.
+     */
+    public long getLosses() {
+        return losses;
+    }
+
+    /**
+     * @return the number of hands that were a tie.
+     */
+    public long getPushes() {
+        return pushes;
+    }
+
+    /**
+     * @return the total units won or lost.
+     */
+    public double getNet() {
+        return net;
+    }
+
+    /**
+     * Gets the expected value of a hand for the player, in units per unit bet.
+     * A negative value is the house edge.
+     *
+     * @return the average units won per hand.
+     */
+    public double getExpectedValue() {
+        return mean;
+    }
+
+    /**
+     * @return the sample variance of the units won per hand.
+     */
+    public double getVariance() {
+        return hands < 2 ? 0 : m2 / (hands - 1);
+    }
+
+    /**
+     * @return the sample standard deviation of the units won per hand.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return the half-width of the 95% confidence interval of the expected
+     *         value.
+     */
+    public double getMarginOfError() {
+        return hands == 0 ? 0 : Z_95 * Math.sqrt(getVariance() / hands);
+    }
+
+    /**
+     * @param upcard the point value of the dealer's upcard, 1 for an Ace.
+     * @return the share of hands the dealer busted with that upcard.
+     */
+    public double getDealerBustRate(int upcard) {
+        return upcardHands[upcard] == 0 ? 0 : (double) dealerBusts[upcard] / upcardHands[upcard];
+    }
+
+    /**
+     * @return the share of all hands the dealer busted.
+     */
+    public double getDealerBustRate() {
+        long busts = 0;
+        for (long count : dealerBusts) {
+            busts += count;
+        }
+        return hands == 0 ? 0 : (double) busts / hands;
+    }
+
+    /**
+     * @param trueCount a true count, from {@link #MIN_TRUE_COUNT} to
+     *                  {@link #MAX_TRUE_COUNT}.
+     * @return the number of hands dealt at that true count.
+     */
+    public long getTrueCountHands(int trueCount) {
+        return trueCountHands[trueCount - MIN_TRUE_COUNT];
+    }
+
+    /**
+     * @param trueCount a true count, from {@link #MIN_TRUE_COUNT} to
+     *                  {@link #MAX_TRUE_COUNT}.
+     * @return the average units won per hand dealt at that true count.
+     */
+    public double getTrueCountExpectedValue(int trueCount) {
+        int bucket = trueCount - MIN_TRUE_COUNT;
+        return trueCountHands[bucket] == 0 ? 0 : trueCountNet[bucket] / trueCountHands[bucket];
+    }
+
+    /**
+     * @return the wall clock time the run took, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @param elapsedNanos the wall clock time the run took, in nanoseconds.
+     */
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return the number of hands played per second of wall clock time.
+     */
+    public double getHandsPerSecond() {
+        return elapsedNanos == 0 ? 0 : hands * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Provides a summary of the results, one statistic per line.
+     *
+     * @return String representation of the results.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format("Hands played: %d%n"
+                + "Wins: %d (%.2f%%)%n"
+                + "Blackjacks: %d (%.2f%%)%n"
+                + "Losses: %d (%.2f%%)%n"
+                + "Pushes: %d (%.2f%%)%n"
+                + "Expected value: %+.4f units per hand (95%% CI %+.4f to %+.4f)%n"
+                + "Standard deviation: %.4f units per hand%n",
+                hands,
+                wins, percent(wins),
+                blackjacks, percent(blackjacks),
+                losses, percent(losses),
+                pushes, percent(pushes),
+                getExpectedValue(), getExpectedValue() - getMarginOfError(),
+                getExpectedValue() + getMarginOfError(),
+                getStandardDeviation()));
+
+        text.append("Dealer bust rate by upcard:");
+        for (int upcard = 2; upcard <= 11; upcard++) {
+            int points = upcard == 11 ? 1 : upcard;
+            text.append(String.format(" %s %.1f%%", upcard == 11 ? "A" : Integer.toString(upcard),
+                    getDealerBustRate(points) * 100));
+        }
+        text.append(String.format("%nExpected value by true count:"));
+        for (int trueCount = MIN_TRUE_COUNT; trueCount <= MAX_TRUE_COUNT; trueCount++) {
+            if (getTrueCountHands(trueCount) != 0) {
+                text.append(String.format(" %+d %+.3f", trueCount, getTrueCountExpectedValue(trueCount)));
+            }
+        }
+        text.append(String.format("%nSpeed: %.0f hands/sec", getHandsPerSecond()));
+        return text.toString();
+    }
+
+    /**
+     * @param count a number of hands.
+     * @return the count as a percentage of all hands played.
+     */
+    private double percent(long count) {
+        return hands == 0 ? 0 : count * 100.0 / hands;
+    }
+
+    /**
+     * @param trueCount a true count.
+     * @return the bucket the count falls in: its floor, clamped to the range.
+     */
+    private static int bucket(double trueCount) {
+        int floor = (int) Math.floor(trueCount);
+        return Math.max(MIN_TRUE_COUNT, Math.min(MAX_TRUE_COUNT, floor)) - MIN_TRUE_COUNT;
+    }
+}
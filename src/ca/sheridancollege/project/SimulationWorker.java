@@ -0,0 +1,122 @@
+package ca.sheridancollege.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Plays shards of a run for a {@link SimulationCoordinator}. The worker
+ * connects, receives the run's seed and options, then plays each shard it is
+ * handed with {@link Simulator#runBlocks(long, long, long)} on every core and
+ * sends back the result, until the coordinator says the run is done.
+ *
+ * <p>
+ * Every worker plays with its own instance of the same strategy; the
+ * coordinator does not send one, so workers and the single-process run it is
+ * compared with must be given the same strategy.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class SimulationWorker {
+
+    /** Times a worker tries to connect before giving up. */
+    public static final int CONNECT_ATTEMPTS = 50;
+
+    // Milliseconds between attempts to connect
+    private static final long CONNECT_RETRY_MILLIS = 100;
+
+    // Where the coordinator is listening
+    private final InetSocketAddress address;
+
+    // The strategy used by the simulated player
+    private final PlayerStrategy strategy;
+
+    /**
+     * Constructs a new worker.
+     *
+     * @param address  where the coordinator is listening.
+     * @param strategy the strategy used by the simulated player.
+     */
+    public SimulationWorker(InetSocketAddress address, PlayerStrategy strategy) {
+        this.address = address;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Connects to the coordinator, retrying while it starts up, and plays
+     * shards until the run is done.
+     *
+     * @return the number of shards played.
+     * @throws IOException if the coordinator cannot be reached or the
+     *                     connection fails during a shard.
+     */
+    public int run() throws IOException {
+        try (Socket socket = connect()) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(SimulationCoordinator.MAGIC);
+            out.flush();
+            if (in.readInt() != SimulationCoordinator.MAGIC) {
+                throw new IOException(address + " is not a simulation coordinator");
+            }
+            long seed = in.readLong();
+            long hands = in.readLong();
+            Simulator simulator = new Simulator(strategy, seed);
+            simulator.setDecks(in.readInt());
+            simulator.setPenetration(in.readDouble());
+            simulator.setRules(HouseRules.values()[in.readByte()]);
+            simulator.setBatchLanes(in.readInt());
+
+            int shards = 0;
+            while (true) {
+                byte command;
+                try {
+                    command = in.readByte();
+                } catch (EOFException e) {
+                    // The coordinator finished without waiting to say so
+                    return shards;
+                }
+                if (command == SimulationCoordinator.DONE) {
+                    return shards;
+                }
+                long from = in.readLong();
+                long to = in.readLong();
+                SimulationResult result = simulator.runBlocks(from, to, hands);
+                out.writeLong(from);
+                result.writeTo(out);
+                out.flush();
+                shards++;
+            }
+        }
+    }
+
+    /**
+     * @return a connection to the coordinator.
+     * @throws IOException if it cannot be reached after
+     *                     {@link #CONNECT_ATTEMPTS} tries.
+     */
+    private Socket connect() throws IOException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return new Socket(address.getAddress(), address.getPort());
+            } catch (ConnectException e) {
+                if (attempt == CONNECT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(CONNECT_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while connecting to " + address, e);
+            }
+        }
+    }
+}
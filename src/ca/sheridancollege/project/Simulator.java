@@ -0,0 +1,637 @@
+package ca.sheridancollege.project;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays large numbers of Blackjack hands headlessly to measure how a strategy
+ * performs against the dealer. The hands are split into blocks which are
+ * played in parallel on a fork-join pool. Each block has its own shoe, game
+ * and random source, so workers never share state and a seeded run is
+ * repeatable. Each block records into its own {@link SimulationResult}, and
+ * the results are merged in block order, so a seeded run gives the same
+ * totals on any number of cores.
+ *
+ * <p>
+ * With {@link #setBatchLanes(int)} ranges of blocks are played in lockstep by
+ * a {@link HandBatch} instead of through {@link BlackjackGame}, which gives the
+ * same results many times faster. Runs recorded to a hand history are always
+ * played through the game.
+ *
+ * <p>
+ * With {@link #setCorpus(ShoeCorpus)} every block deals its shoes from its own
+ * slice of a pre-shuffled corpus instead of shuffling, so runs over the same
+ * corpus with different rules or strategies are dealt the same cards.
+ *
+ * <p>
+ * {@link #compare(long, PlayerStrategy...)} plays other strategies alongside
+ * the simulator's own against the same shoes and pairs their results.
+ *
+ * <p>
+ * {@link #runBlocks(long, long, long)} plays one range of a run's blocks, so
+ * a run can be shared between processes by a {@link SimulationCoordinator}.
+ *
+ * <p>
+ * With {@link #setCheckpoints(SimulationCheckpoints, long)} the run is played
+ * in chunks of blocks and the running results are written out after each
+ * chunk.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class Simulator {
+
+    /** Number of hands played by each block. */
+    public static final int HANDS_PER_BLOCK = 10_000;
+
+    /**
+     * Average number of cards dealt in a round of one player against the
+     * dealer, for estimating how many shoes a run deals.
+     */
+    public static final double CARDS_PER_ROUND = 5.4;
+
+    /** Number of blocks played in lockstep by a batch, when batching is on. */
+    public static final int DEFAULT_BATCH_LANES = 64;
+
+    /** The strategy used by the simulated player. */
+    private final PlayerStrategy strategy;
+
+    /** The source that every block's random source is split from. */
+    private final RandomSource random;
+
+    /** The pool the blocks are played on. */
+    private final ForkJoinPool pool;
+
+    /** Number of decks in each block's shoe. */
+    private int decks = 6;
+
+    /** Share of each shoe dealt before it is reshuffled. */
+    private double penetration = BlackjackDeck.DEFAULT_PENETRATION;
+
+    /** The house rules every block is played under. */
+    private HouseRules rules = HouseRules.DEFAULT;
+
+    /** The log every hand is recorded to, or null. */
+    private HandHistoryLog history;
+
+    /** Most blocks played in lockstep by one batch, or 0 for no batches. */
+    private int batchLanes;
+
+    /** The strategy compiled for batches, or null. */
+    private byte[] batchStrategy;
+
+    /** The corpus every block's shoes are dealt from, or null to shuffle. */
+    private ShoeCorpus corpus;
+
+    /** Where the running results are written, or null. */
+    private SimulationCheckpoints checkpoints;
+
+    /** Number of hands between checkpoints. */
+    private long checkpointInterval;
+
+    /**
+     * Constructs a new simulator that uses every available core.
+     *
+     * @param strategy the strategy used by the simulated player.
+     * @param seed     the seed that makes the run repeatable.
+     */
+    public Simulator(PlayerStrategy strategy, long seed) {
+        this(strategy, new XoroshiroRandomSource(seed), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new simulator that plays on the given pool.
+     *
+     * @param strategy the strategy used by the simulated player.
+     * @param random   the seeded source each block's source is split from.
+     * @param pool     the pool the blocks are played on.
+     */
+    public Simulator(PlayerStrategy strategy, RandomSource random, ForkJoinPool pool) {
+        this.strategy = strategy;
+        this.random = random;
+        this.pool = pool;
+    }
+
+    /**
+     * @return the number of decks in each block's shoe.
+     */
+    public int getDecks() {
+        return decks;
+    }
+
+    /**
+     * @param decks the number of decks in each block's shoe (1-8).
+     */
+    public void setDecks(int decks) {
+        this.decks = decks;
+    }
+
+    /**
+     * @return the share of each shoe dealt before it is reshuffled.
+     */
+    public double getPenetration() {
+        return penetration;
+    }
+
+    /**
+     * @param penetration the share of each shoe dealt before it is reshuffled.
+     */
+    public void setPenetration(double penetration) {
+        this.penetration = penetration;
+    }
+
+    /**
+     * @return the house rules every block is played under.
+     */
+    public HouseRules getRules() {
+        return rules;
+    }
+
+    /**
+     * @param rules the house rules every block is played under.
+     */
+    public void setRules(HouseRules rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Records every hand to a hand history log. Each block's hands are logged
+     * with the block's index as the table number.
+     *
+     * @param history the log, or null to record nothing.
+     */
+    public void setHistory(HandHistoryLog history) {
+        this.history = history;
+    }
+
+    /**
+     * @return the most blocks played in lockstep by one batch, or 0 if every
+     *         block is played through the game.
+     */
+    public int getBatchLanes() {
+        return batchLanes;
+    }
+
+    /**
+     * Plays ranges of blocks in lockstep, see {@link HandBatch}.
+     *
+     * @param lanes the most blocks played by one batch, such as
+     *              {@link #DEFAULT_BATCH_LANES}, or 0 to play every block
+     *              through the game.
+     * @throws IllegalArgumentException if the strategy cannot be played in a
+     *                                  batch.
+     */
+    public void setBatchLanes(int lanes) {
+        if (lanes < 0) {
+            throw new IllegalArgumentException("The number of batch lanes cannot be negative: " + lanes);
+        }
+        batchStrategy = lanes > 0 ? HandBatch.compile(strategy) : null;
+        batchLanes = lanes;
+    }
+
+    /**
+     * @return the corpus every block's shoes are dealt from, or null if they
+     *         are shuffled.
+     */
+    public ShoeCorpus getCorpus() {
+        return corpus;
+    }
+
+    /**
+     * Deals every block's shoes from a corpus instead of shuffling. The shoes
+     * are shared out between the blocks in equal runs, and a block that needs
+     * more shoes than its run deals them again from the start of the run, so
+     * the corpus should have at least {@link #getShoesNeeded(long)} shoes for
+     * the blocks' results to be independent. A run with more blocks than the
+     * corpus has shoes is rejected.
+     *
+     * @param corpus the corpus, or null to shuffle.
+     */
+    public void setCorpus(ShoeCorpus corpus) {
+        this.corpus = corpus;
+    }
+
+    /**
+     * Writes the running results out as the run progresses.
+     *
+     * @param checkpoints where the results are written, or null for nowhere.
+     * @param interval    the number of hands between checkpoints, rounded up
+     *                    to whole blocks.
+     */
+    public void setCheckpoints(SimulationCheckpoints checkpoints, long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("The checkpoint interval must be positive: " + interval);
+        }
+        this.checkpoints = checkpoints;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Plays the given number of hands and aggregates the results.
+     *
+     * @param hands the number of hands to play.
+     * @return the aggregated results of the run.
+     * @throws UncheckedIOException     if a checkpoint cannot be written.
+     * @throws IllegalArgumentException if the corpus's shoes have a different
+     *                                  number of decks, or it has fewer shoes
+     *                                  than the run has blocks.
+     */
+    public SimulationResult run(long hands) {
+        checkCorpus(hands);
+        long start = System.nanoTime();
+        long blocks = (hands + HANDS_PER_BLOCK - 1) / HANDS_PER_BLOCK;
+        long chunk = checkpoints == null ? Math.max(blocks, 1)
+                : (checkpointInterval + HANDS_PER_BLOCK - 1) / HANDS_PER_BLOCK;
+
+        SimulationResult result = new SimulationResult();
+        for (long from = 0; from < blocks; from += chunk) {
+            result.merge(pool.invoke(new BlockTask(from, Math.min(from + chunk, blocks), hands)));
+            result.setElapsedNanos(System.nanoTime() - start);
+            if (checkpoints != null) {
+                try {
+                    checkpoints.write(result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Plays one range of a run's blocks. The blocks are played and merged
+     * exactly as {@link #run(long)} plays that range, so if the run is split
+     * in halves, as {@link #run(long)} splits it, and the halves' results are
+     * merged back in the same order, the totals are the same as the whole
+     * run's (without checkpoints, which merge in chunks instead).
+     *
+     * @param from  the first block.
+     * @param to    one past the last block.
+     * @param hands the number of hands in the whole run.
+     * @return the results of the blocks.
+     * @throws IllegalArgumentException if the range is not in the run, or the
+     *                                  corpus's shoes have a different number
+     *                                  of decks or it has fewer shoes than the
+     *                                  run has blocks.
+     */
+    public SimulationResult runBlocks(long from, long to, long hands) {
+        if (from < 0 || from >= to || to > blocks(hands)) {
+            throw new IllegalArgumentException("Blocks " + from + " to " + to + " are not in a run of " + hands
+                    + " hands");
+        }
+        checkCorpus(hands);
+        long start = System.nanoTime();
+        SimulationResult result = pool.invoke(new BlockTask(from, to, hands));
+        result.setElapsedNanos(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * @param hands a number of hands.
+     * @return the number of blocks a run of that many hands is played in.
+     */
+    public static long blocks(long hands) {
+        return (hands + HANDS_PER_BLOCK - 1) / HANDS_PER_BLOCK;
+    }
+
+    /**
+     * Estimates how many of the corpus's shoes a run deals, at about
+     * {@link #CARDS_PER_ROUND} cards a round. A corpus with fewer shoes than
+     * this still plays the run, but blocks deal some of their shoes twice.
+     *
+     * @param hands the number of hands in the run.
+     * @return the number of shoes the run's blocks deal between them.
+     */
+    public long getShoesNeeded(long hands) {
+        double roundsPerShoe = Math.max(1, Math.floor(decks * 52 * penetration / CARDS_PER_ROUND));
+        long shoesPerBlock = (long) Math.ceil(Math.min(hands, HANDS_PER_BLOCK) / roundsPerShoe);
+        return blocks(hands) * shoesPerBlock;
+    }
+
+    /**
+     * Checks that the corpus, if any, can deal a run: its shoes have as many
+     * decks as the simulator's, and every block gets shoes of its own.
+     *
+     * @param hands the number of hands in the run.
+     * @throws IllegalArgumentException if the corpus's shoes have a different
+     *                                  number of decks, or it has fewer shoes
+     *                                  than the run has blocks.
+     */
+    private void checkCorpus(long hands) {
+        if (corpus == null) {
+            return;
+        }
+        if (corpus.getDecks() != decks) {
+            throw new IllegalArgumentException("The corpus has " + corpus.getDecks() + " deck shoes, not " + decks);
+        }
+        if (corpus.getShoeCount() < blocks(hands)) {
+            throw new IllegalArgumentException("The corpus has " + corpus.getShoeCount() + " shoes, fewer than the "
+                    + blocks(hands) + " blocks of " + hands + " hands; write one with at least "
+                    + getShoesNeeded(hands) + " shoes");
+        }
+    }
+
+    /**
+     * Plays the simulator's strategy and other strategies against the same
+     * rounds and compares them. In each round the shoe is dealt to one
+     * strategy after another, rewound to the start of the round between them,
+     * so every strategy is dealt the same cards and the shuffles are shared.
+     * The next round starts after the most cards any strategy drew. A round
+     * that runs out of the shoe is finished from the next shuffle, so with a
+     * penetration close to 1 a few rounds are not exactly paired.
+     *
+     * <p>
+     * Comparisons are always played through the game, one block at a time;
+     * the history, checkpoints and batches are not used.
+     *
+     * @param hands      the number of rounds each strategy plays.
+     * @param strategies the strategies to compare with the simulator's.
+     * @return the comparison, with the simulator's strategy as the baseline.
+     * @throws IllegalArgumentException if the corpus's shoes have a different
+     *                                  number of decks, or it has fewer shoes
+     *                                  than the run has blocks.
+     */
+    public StrategyComparison compare(long hands, PlayerStrategy... strategies) {
+        checkCorpus(hands);
+        long start = System.nanoTime();
+        PlayerStrategy[] all = new PlayerStrategy[strategies.length + 1];
+        all[0] = strategy;
+        System.arraycopy(strategies, 0, all, 1, strategies.length);
+        long blocks = (hands + HANDS_PER_BLOCK - 1) / HANDS_PER_BLOCK;
+
+        StrategyComparison comparison = blocks == 0 ? new StrategyComparison(names(all))
+                : pool.invoke(new CompareTask(all, 0, blocks, hands));
+        comparison.setElapsedNanos(System.nanoTime() - start);
+        return comparison;
+    }
+
+    /**
+     * @param strategies strategies.
+     * @return a name for each strategy, numbered so that two strategies of the
+     *         same class can be told apart.
+     */
+    private static String[] names(PlayerStrategy[] strategies) {
+        String[] names = new String[strategies.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = (i + 1) + " " + strategies[i].getClass().getSimpleName();
+        }
+        return names;
+    }
+
+    /**
+     * Creates a block's shoe, with a random source split off for the block and
+     * the block's slice of the corpus.
+     *
+     * @param block      the index of the block.
+     * @param totalHands the number of hands in the whole run.
+     * @return the shoe.
+     */
+    private BlackjackDeck newDeck(long block, long totalHands) {
+        BlackjackDeck deck = new BlackjackDeck(decks, penetration);
+        deck.setRandom(random.split(block));
+        if (corpus != null) {
+            deck.setShoes(slice(block, totalHands));
+        }
+        return deck;
+    }
+
+    /**
+     * Creates a headless game for one player.
+     *
+     * @param player the player.
+     * @param deck   the shoe to deal from.
+     * @return the game.
+     */
+    private BlackjackGame newGame(BlackjackPlayer player, BlackjackDeck deck) {
+        List<BlackjackPlayer> players = new ArrayList<>();
+        players.add(player);
+        BlackjackGame game = new BlackjackGame("Simulation", players, deck);
+        game.setOutput(NullSink.INSTANCE);
+        game.setRules(rules);
+        return game;
+    }
+
+    /**
+     * Plays a single block of hands with its own shoe and a random source split
+     * off for the block, so the results do not depend on which thread plays it.
+     *
+     * @param block      the index of the block.
+     * @param hands      the number of hands to play in the block.
+     * @param totalHands the number of hands in the whole run.
+     * @return the results of the block.
+     */
+    private SimulationResult playBlock(long block, long hands, long totalHands) {
+        BlackjackPlayer player = new BlackjackPlayer("Simulator", strategy);
+        BlackjackDeck deck = newDeck(block, totalHands);
+        BlackjackGame game = newGame(player, deck);
+        game.setHistory(history, (int) block);
+
+        CompositionTracker tracker = deck.getTracker();
+        Dealer dealer = game.getDealer();
+
+        SimulationResult result = new SimulationResult();
+        for (long i = 0; i < hands; i++) {
+            deck.reshuffleIfNeeded();
+            double trueCount = tracker.getTrueCount(CountSystem.HI_LO);
+            Outcome outcome = game.playHeadless()[0];
+            result.record(outcome, player.getBetUnits(), dealer.getUpcard().getPoints(), dealer.isBusted(),
+                    trueCount);
+        }
+        game.flushMetrics();
+        return result;
+    }
+
+    /**
+     * Plays a single block of rounds for every strategy, rewinding the shoe
+     * between them.
+     *
+     * @param strategies the strategies, the baseline first.
+     * @param block      the index of the block.
+     * @param hands      the number of rounds to play in the block.
+     * @param totalHands the number of rounds in the whole run.
+     * @return the comparison of the block.
+     */
+    private StrategyComparison compareBlock(PlayerStrategy[] strategies, long block, long hands, long totalHands) {
+        BlackjackDeck deck = newDeck(block, totalHands);
+        BlackjackPlayer[] players = new BlackjackPlayer[strategies.length];
+        BlackjackGame[] games = new BlackjackGame[strategies.length];
+        for (int i = 0; i < games.length; i++) {
+            players[i] = new BlackjackPlayer("Simulator " + (i + 1), strategies[i]);
+            games[i] = newGame(players[i], deck);
+        }
+        CompositionTracker tracker = deck.getTracker();
+
+        StrategyComparison comparison = new StrategyComparison(names(strategies));
+        double[] won = new double[games.length];
+        for (long round = 0; round < hands; round++) {
+            deck.reshuffleIfNeeded();
+            double trueCount = tracker.getTrueCount(CountSystem.HI_LO);
+            int start = deck.getPosition();
+            int end = start;
+            for (int i = 0; i < games.length; i++) {
+                deck.setPosition(start);
+                Outcome outcome = games[i].playHeadless()[0];
+                end = Math.max(end, deck.getPosition());
+
+                Dealer dealer = games[i].getDealer();
+                int units = players[i].getBetUnits();
+                comparison.getResult(i).record(outcome, units, dealer.getUpcard().getPoints(), dealer.isBusted(),
+                        trueCount);
+                won[i] = outcome.getPayout() * units;
+            }
+            deck.setPosition(end);
+            comparison.recordRound(won);
+        }
+        for (BlackjackGame game : games) {
+            game.flushMetrics();
+        }
+        return comparison;
+    }
+
+    /**
+     * Plays a range of blocks in lockstep.
+     *
+     * @param from       the first block.
+     * @param to         one past the last block.
+     * @param totalHands the number of hands in the whole run.
+     * @return the results of the blocks, merged as {@link BlockTask} would.
+     */
+    private SimulationResult playBatch(long from, long to, long totalHands) {
+        int lanes = (int) (to - from);
+        RandomSource[] sources = new RandomSource[lanes];
+        long[] hands = new long[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            sources[lane] = random.split(from + lane);
+            hands[lane] = Math.min(HANDS_PER_BLOCK, totalHands - (from + lane) * HANDS_PER_BLOCK);
+        }
+        HandBatch batch = new HandBatch(batchStrategy, rules, decks, penetration, sources);
+        if (corpus != null) {
+            ShoeCorpus.Slice[] shoes = new ShoeCorpus.Slice[lanes];
+            for (int lane = 0; lane < lanes; lane++) {
+                shoes[lane] = slice(from + lane, totalHands);
+            }
+            batch.setShoes(shoes);
+        }
+        return merge(batch.play(hands), 0, lanes);
+    }
+
+    /**
+     * Gets a block's run of the corpus's shoes. {@link #checkCorpus(long)} has
+     * made sure every block gets at least one shoe of its own.
+     *
+     * @param block      the index of the block.
+     * @param totalHands the number of hands in the whole run.
+     * @return the block's slice of the corpus.
+     */
+    private ShoeCorpus.Slice slice(long block, long totalHands) {
+        long blocks = (totalHands + HANDS_PER_BLOCK - 1) / HANDS_PER_BLOCK;
+        long stride = corpus.getShoeCount() / blocks;
+        return corpus.slice(block * stride, stride);
+    }
+
+    /**
+     * Merges a range of results by halves, in the same order the blocks
+     * would have been merged one at a time, so batching does not change the
+     * totals.
+     *
+     * @param results the results.
+     * @param from    the first result.
+     * @param to      one past the last result.
+     * @return the merged results.
+     */
+    private static SimulationResult merge(SimulationResult[] results, int from, int to) {
+        if (to - from == 1) {
+            return results[from];
+        }
+        int middle = (from + to) >>> 1;
+        return merge(results, from, middle).merge(merge(results, middle, to));
+    }
+
+    /**
+     * Splits a range of blocks in half until a single block, or a range small
+     * enough for a batch, is left, then plays it. Results are merged on the way
+     * back up.
+     */
+    private class BlockTask extends RecursiveTask<SimulationResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        // The first block of the range
+        private final long from;
+
+        // One past the last block of the range
+        private final long to;
+
+        // Total hands in the run, so the last block can be shorter
+        private final long totalHands;
+
+        BlockTask(long from, long to, long totalHands) {
+            this.from = from;
+            this.to = to;
+            this.totalHands = totalHands;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (to - from <= batchLanes && history == null) {
+                return playBatch(from, to, totalHands);
+            }
+            if (to - from == 1) {
+                long hands = Math.min(HANDS_PER_BLOCK, totalHands - from * HANDS_PER_BLOCK);
+                return playBlock(from, hands, totalHands);
+            }
+
+            long middle = (from + to) >>> 1;
+            BlockTask left = new BlockTask(from, middle, totalHands);
+            left.fork();
+            SimulationResult right = new BlockTask(middle, to, totalHands).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Splits a range of blocks in half until a single block is left, then
+     * compares the strategies on it, as {@link BlockTask} does.
+     */
+    private class CompareTask extends RecursiveTask<StrategyComparison> {
+
+        private static final long serialVersionUID = 1L;
+
+        // The strategies, the baseline first
+        private final PlayerStrategy[] strategies;
+
+        // The first block of the range
+        private final long from;
+
+        // One past the last block of the range
+        private final long to;
+
+        // Total rounds in the run, so the last block can be shorter
+        private final long totalHands;
+
+        CompareTask(PlayerStrategy[] strategies, long from, long to, long totalHands) {
+            this.strategies = strategies;
+            this.from = from;
+            this.to = to;
+            this.totalHands = totalHands;
+        }
+
+        @Override
+        protected StrategyComparison compute() {
+            if (to - from == 1) {
+                long hands = Math.min(HANDS_PER_BLOCK, totalHands - from * HANDS_PER_BLOCK);
+                return compareBlock(strategies, from, hands, totalHands);
+            }
+
+            long middle = (from + to) >>> 1;
+            CompareTask left = new CompareTask(strategies, from, middle, totalHands);
+            left.fork();
+            StrategyComparison right = new CompareTask(strategies, middle, to, totalHands).compute();
+            return left.join().merge(right);
+        }
+    }
+}
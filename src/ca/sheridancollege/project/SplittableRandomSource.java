@@ -0,0 +1,42 @@
+package ca.sheridancollege.project;
+
+import java.util.SplittableRandom;
+
+/**
+ * A random source backed by the JDK's {@link SplittableRandom}.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class SplittableRandomSource implements RandomSource {
+
+    // The seed this source was created with, used to derive split streams
+    private final long seed;
+
+    // The underlying generator
+    private final SplittableRandom random;
+
+    /**
+     * Constructs a new source with the given seed.
+     *
+     * @param seed the seed.
+     */
+    public SplittableRandomSource(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    @Override
+    public RandomSource split(long stream) {
+        return new SplittableRandomSource(RandomSource.mix(seed, stream));
+    }
+}
@@ -0,0 +1,114 @@
+package ca.sheridancollege.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how long the application takes to launch, run a short command and
+ * exit, by starting it as a new JVM over and over with different JVM options.
+ * Each mode is launched once before it is timed, so the operating system's
+ * file cache is warm for every mode alike. The child JVMs use the same Java
+ * installation and class path as this one.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class StartupTimer {
+
+    // Number of timed launches in each mode
+    private final int runs;
+
+    // The command-line arguments passed to Main on every launch
+    private final String[] command;
+
+    // Where the children's output goes, since only their timing matters
+    private final File output;
+
+    // The report of every mode measured so far
+    private final StringBuilder report = new StringBuilder();
+
+    /**
+     * Constructs a new timer.
+     *
+     * @param runs    the number of timed launches in each mode.
+     * @param command the command-line arguments passed to {@link Main}.
+     * @throws IllegalArgumentException if runs is not positive.
+     */
+    public StartupTimer(int runs, String... command) {
+        if (runs <= 0) {
+            throw new IllegalArgumentException("At least one run is needed: " + runs);
+        }
+        this.runs = runs;
+        this.command = command.clone();
+        output = new File(System.getProperty("java.io.tmpdir"), "blackjack-startup.log");
+    }
+
+    /**
+     * Launches the command in one mode and adds the average and fastest wall
+     * clock times to the report.
+     *
+     * @param mode    a name for the mode in the report.
+     * @param jvmArgs the JVM options of the mode.
+     * @throws IOException if a launch fails or exits with an error.
+     */
+    public void measure(String mode, String... jvmArgs) throws IOException {
+        launch(jvmArgs);
+        long total = 0;
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            long nanos = launch(jvmArgs);
+            total += nanos;
+            fastest = Math.min(fastest, nanos);
+        }
+        report.append(String.format("%-30s %6.1f ms average, %6.1f ms fastest%n", mode, total / 1e6 / runs,
+                fastest / 1e6));
+    }
+
+    /**
+     * Launches the command once and waits for it to exit.
+     *
+     * @param jvmArgs the JVM options.
+     * @return the wall clock time from launch to exit, in nanoseconds.
+     * @throws IOException if the launch fails or exits with an error.
+     */
+    private long launch(String[] jvmArgs) throws IOException {
+        List<String> line = new ArrayList<>();
+        line.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        for (String arg : jvmArgs) {
+            line.add(arg);
+        }
+        line.add("-cp");
+        line.add(System.getProperty("java.class.path"));
+        line.add(Main.class.getName());
+        for (String arg : command) {
+            line.add(arg);
+        }
+        ProcessBuilder builder = new ProcessBuilder(line).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(output));
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            int status = process.waitFor();
+            long nanos = System.nanoTime() - start;
+            if (status != 0) {
+                throw new IOException("Launch exited with status " + status + ", see " + output);
+            }
+            return nanos;
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a launch", e);
+        }
+    }
+
+    /**
+     * @return one line for every mode measured: its average and fastest
+     *         launch times.
+     */
+    @Override
+    public String toString() {
+        return report.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package ca.sheridancollege.project;
+
+/**
+ * A basic strategy chart: the decision to make for every hard total, soft
+ * total and pair against every dealer upcard. Decisions are kept in one flat
+ * byte array, so looking one up is a single array access.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class StrategyChart implements PlayerStrategy {
+
+    /** Section of the chart for hands without an Ace counted as 11. */
+    public static final int HARD = 0;
+
+    /** Section of the chart for hands with an Ace counted as 11. */
+    public static final int SOFT = 1;
+
+    /** Section of the chart for two cards of the same point value. */
+    public static final int PAIRS = 2;
+
+    // Rows per section: totals 0-21, or pair point values 1-10
+    private static final int ROWS = 22;
+
+    // Columns per row: upcards 1-10
+    private static final int COLUMNS = 11;
+
+    // Every decision the chart can hold
+    private static final Decision[] DECISIONS = Decision.values();
+
+    // The letter printed for each decision, in Decision order
+    private static final String SYMBOLS = "HSDP";
+
+    // The decisions, indexed by (section * ROWS + row) * COLUMNS + upcard
+    private final byte[] table = new byte[3 * ROWS * COLUMNS];
+
+    /**
+     * Constructs a new chart that hits below 17 and stands on 17 or more, until
+     * cells are filled in.
+     */
+    public StrategyChart() {
+        for (int section = HARD; section <= PAIRS; section++) {
+            for (int row = 0; row < ROWS; row++) {
+                int total = section == PAIRS ? 2 * row : row;
+                for (int upcard = 1; upcard <= 10; upcard++) {
+                    set(section, row, upcard, total >= 17 ? Decision.STAND : Decision.HIT);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the decision for one cell of the chart.
+     *
+     * @param section {@link #HARD}, {@link #SOFT} or {@link #PAIRS}.
+     * @param row     the total (0-21), or the point value of each card of the
+     *                pair (1-10).
+     * @param upcard  the point value of the dealer's visible card (1-10).
+     * @param decision the decision to make.
+     */
+    public void set(int section, int row, int upcard, Decision decision) {
+        table[(section * ROWS + row) * COLUMNS + upcard] = (byte) decision.ordinal();
+    }
+
+    /**
+     * Gets the decision for one cell of the chart.
+     *
+     * @param section {@link #HARD}, {@link #SOFT} or {@link #PAIRS}.
+     * @param row     the total (0-21), or the point value of each card of the
+     *                pair (1-10).
+     * @param upcard  the point value of the dealer's visible card (1-10).
+     * @return the decision to make.
+     */
+    public Decision get(int section, int row, int upcard) {
+        return DECISIONS[table[(section * ROWS + row) * COLUMNS + upcard]];
+    }
+
+    /**
+     * Looks up the decision for the player's hand.
+     *
+     * @param player       the player whose turn it is.
+     * @param dealerUpcard the point value of the dealer's visible card.
+     * @return the decision from the chart.
+     */
+    @Override
+    public Decision decide(BlackjackPlayer player, int dealerUpcard) {
+        int hand = player.getPackedHand();
+        if (PackedHand.cardCount(hand) == 2 && player.getHand().size() == 2) {
+            int first = player.getHand().get(0).getPoints();
+            if (first == player.getHand().get(1).getPoints()) {
+                return get(PAIRS, first, dealerUpcard);
+            }
+        }
+        int score = PackedHand.score(hand);
+        if (score > 21) {
+            return Decision.STAND;
+        }
+        return get(PackedHand.isSoft(hand) ? SOFT : HARD, score, dealerUpcard);
+    }
+
+    /**
+     * Provides the chart as text, one section after another, with H, S, D and P
+     * for hit, stand, double and split.
+     *
+     * @return String representation of the chart.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        appendSection(text, "Hard", HARD, 5, 20);
+        appendSection(text, "Soft", SOFT, 13, 20);
+        appendSection(text, "Pairs", PAIRS, 1, 10);
+        return text.toString();
+    }
+
+    /**
+     * Appends one section of the chart.
+     *
+     * @param text    the text to append to.
+     * @param title   the title of the section.
+     * @param section the section.
+     * @param first   the first row.
+     * @param last    the last row.
+     */
+    private void appendSection(StringBuilder text, String title, int section, int first, int last) {
+        text.append(String.format("%-6s  2 3 4 5 6 7 8 9 T A%n", title));
+        for (int row = first; row <= last; row++) {
+            String label = section == PAIRS ? (row == 1 ? "A,A" : row + "," + row)
+                    : section == SOFT ? "A," + (row - 11) : String.valueOf(row);
+            text.append(String.format("%-6s ", label));
+            for (int upcard = 2; upcard <= 11; upcard++) {
+                text.append(' ').append(SYMBOLS.charAt(get(section, row, upcard == 11 ? 1 : upcard).ordinal()));
+            }
+            text.append(System.lineSeparator());
+        }
+        text.append(System.lineSeparator());
+    }
+}
@@ -0,0 +1,354 @@
+package ca.sheridancollege.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a basic strategy chart by simulation. Every cell of the chart (a
+ * hard total, soft total or pair against a dealer upcard) is its own task on a
+ * work-stealing fork-join pool. A cell deals the starting hand over and over,
+ * trying every allowed decision on the same cards, and stops as soon as the
+ * confidence interval of the best decision no longer overlaps any other.
+ *
+ * <p>
+ * After the first decision the hand is played with {@link BasicStrategy} and
+ * the dealer follows {@link Dealer#play(BlackjackDeck)}. The cards of the
+ * starting hand and the dealer's upcard are fixed rather than taken out of the
+ * shoe, which slightly overstates how many of them are left.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class StrategyChartGenerator {
+
+    /** Number of standard errors between the best decision and the others. */
+    public static final double Z = 3.0;
+
+    /** Number of rounds played between checks of the confidence intervals. */
+    public static final int BATCH = 1_000;
+
+    // Every decision, in the order their statistics are kept
+    private static final Decision[] DECISIONS = Decision.values();
+
+    /** The source each cell's random source is split from. */
+    private final RandomSource random;
+
+    /** The pool the cells are simulated on. */
+    private final ForkJoinPool pool;
+
+    /** Largest number of rounds simulated for a cell. */
+    private final int maxRounds;
+
+    /** Number of decks in each cell's shoe. */
+    private int decks = 6;
+
+    // Total rounds played across every cell
+    private final AtomicLong roundsPlayed = new AtomicLong();
+
+    /**
+     * Constructs a new generator that uses every available core.
+     *
+     * @param seed      the seed that makes the chart repeatable.
+     * @param maxRounds the largest number of rounds simulated for a cell.
+     */
+    public StrategyChartGenerator(long seed, int maxRounds) {
+        this(new XoroshiroRandomSource(seed), maxRounds, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new generator that simulates on the given pool.
+     *
+     * @param random    the seeded source each cell's source is split from.
+     * @param maxRounds the largest number of rounds simulated for a cell.
+     * @param pool      the pool the cells are simulated on.
+     */
+    public StrategyChartGenerator(RandomSource random, int maxRounds, ForkJoinPool pool) {
+        this.random = random;
+        this.maxRounds = maxRounds;
+        this.pool = pool;
+    }
+
+    /**
+     * @param decks the number of decks in each cell's shoe (1-8).
+     */
+    public void setDecks(int decks) {
+        this.decks = decks;
+    }
+
+    /**
+     * @return the total number of rounds played across every cell so far.
+     */
+    public long getRoundsPlayed() {
+        return roundsPlayed.get();
+    }
+
+    /**
+     * Simulates every cell of the chart.
+     *
+     * @return the generated chart.
+     */
+    public StrategyChart generate() {
+        final StrategyChart chart = new StrategyChart();
+        final List<CellTask> cells = new ArrayList<>();
+
+        for (int upcard = 1; upcard <= 10; upcard++) {
+            for (int total = 5; total <= 20; total++) {
+                cells.add(new CellTask(chart, StrategyChart.HARD, total, upcard, cells.size()));
+            }
+            for (int total = 13; total <= 20; total++) {
+                cells.add(new CellTask(chart, StrategyChart.SOFT, total, upcard, cells.size()));
+            }
+            for (int points = 1; points <= 10; points++) {
+                cells.add(new CellTask(chart, StrategyChart.PAIRS, points, upcard, cells.size()));
+            }
+        }
+
+        pool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(cells);
+            }
+        });
+        return chart;
+    }
+
+    /**
+     * Gets the two cards of a cell's starting hand.
+     *
+     * @param section the section of the chart.
+     * @param row     the total or pair point value.
+     * @return the point values of the two cards.
+     */
+    static int[] startingCards(int section, int row) {
+        switch (section) {
+            case StrategyChart.PAIRS:
+                return new int[] { row, row };
+            case StrategyChart.SOFT:
+                return new int[] { 1, row - 11 };
+            default:
+                // Avoid pairs and Aces: 2 and 3-9 for low totals, a ten for the rest
+                return row <= 11 ? new int[] { 2, row - 2 } : new int[] { 10, row - 10 };
+        }
+    }
+
+    /**
+     * Simulates one cell of the chart.
+     */
+    private class CellTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        // The chart the result is written to
+        private final StrategyChart chart;
+
+        // The cell being simulated
+        private final int section;
+        private final int row;
+        private final int upcard;
+
+        // The index of the cell, used to split off its random source
+        private final int index;
+
+        // Per decision: rounds, sum and sum of squares of the units won
+        private final long[] rounds = new long[DECISIONS.length];
+        private final double[] sum = new double[DECISIONS.length];
+        private final double[] sumOfSquares = new double[DECISIONS.length];
+
+        // The seat and dealer the rounds are played with
+        private final BlackjackPlayer player = new BlackjackPlayer("Chart", new BasicStrategy());
+        private final BlackjackPlayer splitHand = new BlackjackPlayer("Split", new BasicStrategy());
+        private final Dealer dealer = new Dealer();
+
+        CellTask(StrategyChart chart, int section, int row, int upcard, int index) {
+            this.chart = chart;
+            this.section = section;
+            this.row = row;
+            this.upcard = upcard;
+            this.index = index;
+        }
+
+        @Override
+        protected void compute() {
+            BlackjackDeck deck = new BlackjackDeck(decks, BlackjackDeck.DEFAULT_PENETRATION);
+            deck.setRandom(random.split(index));
+            int[] cards = startingCards(section, row);
+            boolean canSplit = section == StrategyChart.PAIRS;
+
+            int played = 0;
+            while (played < maxRounds) {
+                for (int i = 0; i < BATCH; i++) {
+                    deck.reshuffleIfNeeded();
+                    BlackjackCard hole = deck.drawCard();
+                    int start = deck.getPosition();
+
+                    // Every decision sees exactly the same cards
+                    for (Decision decision : DECISIONS) {
+                        if (decision == Decision.SPLIT && !canSplit) {
+                            continue;
+                        }
+                        deck.setPosition(start);
+                        record(decision, playRound(deck, cards, hole, decision));
+                    }
+                }
+                played += BATCH;
+                if (separated(canSplit)) {
+                    break;
+                }
+            }
+
+            roundsPlayed.addAndGet(played);
+            chart.set(section, row, upcard, best(canSplit));
+        }
+
+        /**
+         * Plays one round starting with the cell's hand.
+         *
+         * @param deck     the shoe.
+         * @param cards    the point values of the two starting cards.
+         * @param hole     the dealer's hidden card.
+         * @param decision the first decision.
+         * @return the units won or lost.
+         */
+        private double playRound(BlackjackDeck deck, int[] cards, BlackjackCard hole, Decision decision) {
+            if (decision == Decision.SPLIT) {
+                startHand(player, cards[0]);
+                startHand(splitHand, cards[1]);
+                player.addCardToHand(deck.drawCard());
+                splitHand.addCardToHand(deck.drawCard());
+                // Split Aces get one card each
+                if (cards[0] != 1) {
+                    player.autoPlay(deck, upcard);
+                    splitHand.autoPlay(deck, upcard);
+                }
+                playDealer(deck, hole);
+                return splitPayout(player) + splitPayout(splitHand);
+            }
+
+            startHand(player, cards[0]);
+            player.addCardToHand(card(cards[1]));
+            int units = 1;
+            if (decision == Decision.HIT) {
+                player.addCardToHand(deck.drawCard());
+                player.autoPlay(deck, upcard);
+            } else if (decision == Decision.DOUBLE) {
+                player.addCardToHand(deck.drawCard());
+                units = 2;
+            }
+            playDealer(deck, hole);
+            return BlackjackGame.settle(player, dealer).getPayout() * units;
+        }
+
+        /**
+         * Scores a hand made by splitting against the dealer's finished hand.
+         * Two cards totalling 21 on a split hand are a plain 21, not a
+         * Blackjack, so the totals are compared directly rather than through
+         * {@link BlackjackGame#settle(BlackjackPlayer, BlackjackPlayer)}.
+         *
+         * @param hand the split hand.
+         * @return the units won or lost.
+         */
+        private double splitPayout(BlackjackPlayer hand) {
+            if (hand.isBusted() || dealer.isNatural()) {
+                return -1;
+            }
+            if (dealer.isBusted()) {
+                return 1;
+            }
+            return Integer.signum(hand.getScore() - dealer.getScore());
+        }
+
+        /**
+         * Empties a hand and gives it a first card, already revealed.
+         *
+         * @param hand   the hand.
+         * @param points the point value of the first card.
+         */
+        private void startHand(BlackjackPlayer hand, int points) {
+            hand.resetHand();
+            hand.addCardToHand(card(points));
+            hand.revealHiddenCard();
+        }
+
+        /**
+         * Gives the dealer the hole card and upcard and plays the dealer's turn.
+         *
+         * @param deck the shoe.
+         * @param hole the dealer's hidden card.
+         */
+        private void playDealer(BlackjackDeck deck, BlackjackCard hole) {
+            dealer.resetHand();
+            dealer.addCardToHand(hole);
+            dealer.addCardToHand(card(upcard));
+            dealer.play(deck);
+        }
+
+        /**
+         * Adds one round's result to a decision's statistics.
+         *
+         * @param decision the decision.
+         * @param units    the units won or lost.
+         */
+        private void record(Decision decision, double units) {
+            int i = decision.ordinal();
+            rounds[i]++;
+            sum[i] += units;
+            sumOfSquares[i] += units * units;
+        }
+
+        /**
+         * @param canSplit whether splitting was simulated.
+         * @return the decision with the highest average result.
+         */
+        private Decision best(boolean canSplit) {
+            Decision best = Decision.STAND;
+            for (Decision decision : DECISIONS) {
+                if ((decision != Decision.SPLIT || canSplit) && mean(decision) > mean(best)) {
+                    best = decision;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * @param canSplit whether splitting was simulated.
+         * @return true if the best decision's interval is clear of every other's.
+         */
+        private boolean separated(boolean canSplit) {
+            Decision best = best(canSplit);
+            double low = mean(best) - Z * standardError(best);
+            for (Decision decision : DECISIONS) {
+                if (decision == best || (decision == Decision.SPLIT && !canSplit)) {
+                    continue;
+                }
+                if (mean(decision) + Z * standardError(decision) >= low) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double mean(Decision decision) {
+            int i = decision.ordinal();
+            return sum[i] / rounds[i];
+        }
+
+        private double standardError(Decision decision) {
+            int i = decision.ordinal();
+            double mean = mean(decision);
+            double variance = sumOfSquares[i] / rounds[i] - mean * mean;
+            return Math.sqrt(Math.max(variance, 0) / rounds[i]);
+        }
+    }
+
+    /**
+     * @param points a point value (1-10).
+     * @return a card with that point value.
+     */
+    private static BlackjackCard card(int points) {
+        return BlackjackCard.of(Suit.SPADES, points);
+    }
+}
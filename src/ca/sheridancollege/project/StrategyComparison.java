@@ -0,0 +1,202 @@
+package ca.sheridancollege.project;
+
+/**
+ * Holds the results of several strategies played against the same cards by
+ * {@link Simulator#compare(long, PlayerStrategy...)}. Each strategy has its
+ * own {@link SimulationResult}, and every strategy after the first, the
+ * baseline, also keeps the round by round difference between its return and
+ * the baseline's. Both strategies are dealt the same cards, so most of the
+ * luck cancels out of the difference and its confidence interval is far
+ * narrower than that of the difference between two independent runs.
+ *
+ * <p>
+ * Like a result, a comparison is a streaming accumulator: the differences are
+ * kept with Welford's method and comparisons of separate blocks are merged
+ * with Chan's formula.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class StrategyComparison {
+
+    /** The names of the strategies, the baseline first. */
+    private final String[] names;
+
+    /** The results of each strategy. */
+    private final SimulationResult[] results;
+
+    /** Number of rounds every strategy played. */
+    private long rounds;
+
+    /** Running mean of each strategy's return minus the baseline's, per round. */
+    private final double[] mean;
+
+    /** Running sum of squared differences from each mean. */
+    private final double[] m2;
+
+    /** Wall clock time the run took, in nanoseconds. */
+    private long elapsedNanos;
+
+    /**
+     * Constructs a new, empty comparison.
+     *
+     * @param names the names of the strategies, the baseline first.
+     */
+    public StrategyComparison(String[] names) {
+        this.names = names.clone();
+        results = new SimulationResult[names.length];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new SimulationResult();
+        }
+        mean = new double[names.length];
+        m2 = new double[names.length];
+    }
+
+    /**
+     * Records the returns of one round. Each strategy's hand must also be
+     * recorded in its {@link #getResult(int)}.
+     *
+     * @param won the units each strategy won (positive) or lost (negative) in
+     *            the round, the baseline first.
+     */
+    public void recordRound(double[] won) {
+        rounds++;
+        for (int i = 1; i < names.length; i++) {
+            double difference = won[i] - won[0];
+            double delta = difference - mean[i];
+            mean[i] += delta / rounds;
+            m2[i] += delta * (difference - mean[i]);
+        }
+    }
+
+    /**
+     * Adds another comparison of the same strategies to this one. As with
+     * {@link SimulationResult#merge(SimulationResult)}, merge in a fixed
+     * order to get the same totals from every run with the same seed.
+     *
+     * @param other the comparison to add.
+     * @return this comparison, for chaining.
+     */
+    public StrategyComparison merge(StrategyComparison other) {
+        if (other.rounds != 0) {
+            long total = rounds + other.rounds;
+            for (int i = 1; i < names.length; i++) {
+                double delta = other.mean[i] - mean[i];
+                mean[i] += delta * other.rounds / total;
+                m2[i] += other.m2[i] + delta * delta * ((double) rounds * other.rounds / total);
+            }
+        }
+        rounds += other.rounds;
+        for (int i = 0; i < results.length; i++) {
+            results[i].merge(other.results[i]);
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of strategies compared, including the baseline.
+     */
+    public int getStrategyCount() {
+        return names.length;
+    }
+
+    /**
+     * @param strategy the index of a strategy, 0 for the baseline.
+     * @return the name of the strategy.
+     */
+    public String getName(int strategy) {
+        return names[strategy];
+    }
+
+    /**
+     * @param strategy the index of a strategy, 0 for the baseline.
+     * @return the results of the strategy on its own.
+     */
+    public SimulationResult getResult(int strategy) {
+        return results[strategy];
+    }
+
+    /**
+     * @return the number of rounds every strategy played.
+     */
+    public long getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @param strategy the index of a strategy other than the baseline.
+     * @return the average units per round the strategy won over the baseline.
+     */
+    public double getDifference(int strategy) {
+        return mean[strategy];
+    }
+
+    /**
+     * @param strategy the index of a strategy other than the baseline.
+     * @return the sample variance of the strategy's return minus the
+     *         baseline's.
+     */
+    public double getDifferenceVariance(int strategy) {
+        return rounds < 2 ? 0 : m2[strategy] / (rounds - 1);
+    }
+
+    /**
+     * @param strategy the index of a strategy other than the baseline.
+     * @return the half-width of the 95% confidence interval of the difference.
+     */
+    public double getDifferenceMarginOfError(int strategy) {
+        return rounds == 0 ? 0 : SimulationResult.Z_95 * Math.sqrt(getDifferenceVariance(strategy) / rounds);
+    }
+
+    /**
+     * Gets how many times as many hands two independent runs would need to
+     * measure the difference as precisely as the paired rounds do.
+     *
+     * @param strategy the index of a strategy other than the baseline.
+     * @return the variance of the difference of independent runs over the
+     *         variance of the paired difference.
+     */
+    public double getVarianceReduction(int strategy) {
+        double paired = getDifferenceVariance(strategy);
+        return paired == 0 ? 0 : (results[0].getVariance() + results[strategy].getVariance()) / paired;
+    }
+
+    /**
+     * @return the wall clock time the run took, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @param elapsedNanos the wall clock time the run took, in nanoseconds.
+     */
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Provides a summary of the comparison: each strategy's expected value,
+     * then each strategy's difference from the baseline.
+     *
+     * @return String representation of the comparison.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format("Rounds played: %d%n", rounds));
+        for (int i = 0; i < names.length; i++) {
+            SimulationResult result = results[i];
+            text.append(String.format("%s: %+.4f units per hand (95%% CI %+.4f to %+.4f)%n", names[i],
+                    result.getExpectedValue(), result.getExpectedValue() - result.getMarginOfError(),
+                    result.getExpectedValue() + result.getMarginOfError()));
+        }
+        for (int i = 1; i < names.length; i++) {
+            text.append(String.format("%s - %s: %+.4f units per hand (95%% CI %+.4f to %+.4f), "
+                    + "%.1fx fewer hands than independent runs%n", names[i], names[0], getDifference(i),
+                    getDifference(i) - getDifferenceMarginOfError(i), getDifference(i) + getDifferenceMarginOfError(i),
+                    getVarianceReduction(i)));
+        }
+        text.append(String.format("Speed: %.0f rounds/sec for each strategy",
+                elapsedNanos == 0 ? 0 : rounds * 1e9 / elapsedNanos));
+        return text.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package ca.sheridancollege.project;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Renders to a terminal in frames. Text is collected in memory and written
+ * with a single write and flush when {@link #flush()} is called, instead of
+ * one synchronized, flushed write per line. Clearing the screen is a single
+ * ANSI escape sequence; anything collected before it is dropped, since it
+ * would be erased before it could be read.
+ *
+ * @author Yonathan Camacho, 2023
+ */
+public class TerminalSink implements OutputSink {
+
+    /** ANSI sequence that moves the cursor home and clears the screen. */
+    public static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+    /** The sink for the process's standard output. */
+    public static final TerminalSink STDOUT = new TerminalSink(new FileOutputStream(FileDescriptor.out));
+
+    // Where frames are written
+    private final OutputStream out;
+
+    // The frame being collected
+    private final StringBuilder frame = new StringBuilder(4096);
+
+    /**
+     * Constructs a new terminal sink.
+     *
+     * @param out the stream frames are written to.
+     */
+    public TerminalSink(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Adds text to the current frame.
+     *
+     * @param text the text to show.
+     */
+    @Override
+    public synchronized void print(String text) {
+        frame.append(text);
+    }
+
+    /**
+     * Drops the current frame and starts the next one with a clear-screen
+     * sequence.
+     */
+    @Override
+    public synchronized void clearScreen() {
+        frame.setLength(0);
+        frame.append(CLEAR_SCREEN);
+    }
+
+    /**
+     * Writes the current frame to the stream with one write and one flush.
+     */
+    @Override
+    public synchronized void flush() {
+        if (frame.length() == 0) {
+            return;
+        }
+        try {
+            out.write(frame.toString().getBytes(Charset.defaultCharset()));
+            out.flush();
+        } catch (IOException e) {
+            // Nothing sensible to do if the terminal has gone away
+        }
+        frame.setLength(0);
+    }
+}